@@ -0,0 +1,56 @@
+#!/usr/bin/env bash
+# Platform threads vs virtual threads under many concurrent connections.
+#
+# Needs a Java 21+ runtime on the PATH, wrk (https://github.com/wg/wrk) and a built jar
+# (./mvnw -DskipTests package). Both runs add the nocache profile so every request blocks on JDBC
+# instead of being answered from the catalog cache. Per mode it prints, sampled mid-run:
+#   - live platform threads (virtual threads are not counted, their carriers are)
+#   - heap used and process RSS
+#   - wrk's latency percentiles up to p99, throughput and socket errors
+#
+# Usage: scripts/load-compare.sh [connections] [seconds]
+# TARGET_PATH picks the endpoint and EXTRA_ARGS is passed to the app, e.g. for the reactive catalog:
+#   EXTRA_ARGS=--catalog.reactive.url=r2dbc:h2:file:///./data/testdb TARGET_PATH=/api/reactive/products/page?limit=20
+set -euo pipefail
+
+CONNECTIONS=${1:-5000}
+SECONDS_PER_RUN=${2:-60}
+WRK_THREADS=${WRK_THREADS:-8}
+PORT=${PORT:-8080}
+TARGET_PATH=${TARGET_PATH:-/api/products/page?limit=20}
+EXTRA_ARGS=${EXTRA_ARGS:-}
+JAR=${JAR:-$(ls target/ecommerce-*.jar | grep -v plain | head -n 1)}
+BASE="http://localhost:$PORT"
+
+ulimit -n 65536
+
+metric() {
+  curl -s "$BASE/actuator/metrics/$1" | sed -E 's/.*"statistic":"VALUE","value":([0-9.E+-]+).*/\1/'
+}
+
+run() {
+  local profiles=$1
+  local out="target/load-${profiles//,/-}"
+  java -jar "$JAR" --spring.profiles.active="$profiles" --server.port="$PORT" $EXTRA_ARGS > "$out.log" 2>&1 &
+  local app=$!
+  until curl -sf "$BASE/actuator/health" > /dev/null; do sleep 1; done
+
+  wrk -t"$WRK_THREADS" -c"$CONNECTIONS" -d10s "$BASE$TARGET_PATH" > /dev/null # warm-up
+  wrk -t"$WRK_THREADS" -c"$CONNECTIONS" -d"${SECONDS_PER_RUN}s" --latency "$BASE$TARGET_PATH" > "$out.wrk" &
+  local load=$!
+  sleep $((SECONDS_PER_RUN / 2))
+  local threads heap rss
+  threads=$(metric jvm.threads.live)
+  heap=$(metric "jvm.memory.used?tag=area:heap")
+  rss=$(ps -o rss= -p "$app")
+  wait "$load"
+
+  echo "== $profiles, $CONNECTIONS connections"
+  echo "live threads: $threads, heap used: $heap bytes, RSS: ${rss} KB"
+  grep -E "^ +(50|75|90|99)%|Requests/sec|Socket errors|Non-2xx" "$out.wrk"
+  kill "$app"
+  wait "$app" || true
+}
+
+run nocache
+run nocache,virtual
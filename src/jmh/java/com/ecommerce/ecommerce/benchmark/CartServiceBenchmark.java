@@ -0,0 +1,39 @@
+package com.ecommerce.ecommerce.benchmark;
+
+import com.ecommerce.ecommerce.dtos.CartItemRequest;
+import com.ecommerce.ecommerce.dtos.CartResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartServiceBenchmark {
+
+    @Benchmark
+    public CartResponse addItemToCart(SeededApplication app) {
+        return app.cartService().addItemToCart(app.randomUserId(),
+                new CartItemRequest(app.randomProductId(), 1));
+    }
+
+    // Increments a line that is already in the cart; run with -p cartItems=100 for 100-line carts
+    @Benchmark
+    public CartResponse addExistingLine(SeededApplication app) {
+        String userId = app.randomUserId();
+        return app.cartService().addItemToCart(userId, new CartItemRequest(app.randomCartLine(userId), 1));
+    }
+
+    @Benchmark
+    public CartResponse getCart(SeededApplication app) {
+        return app.cartService().getCart(app.randomUserId());
+    }
+}
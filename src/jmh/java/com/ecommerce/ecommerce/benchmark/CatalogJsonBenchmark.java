@@ -0,0 +1,94 @@
+package com.ecommerce.ecommerce.benchmark;
+
+import com.ecommerce.ecommerce.dtos.CategoryResponse;
+import com.ecommerce.ecommerce.dtos.ImageResponse;
+import com.ecommerce.ecommerce.dtos.ProductPage;
+import com.ecommerce.ecommerce.dtos.ProductResponse;
+import com.ecommerce.ecommerce.service.CatalogJsonCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing a cached catalog page to the response: Jackson on every request (what a PRODUCT_PAGES hit costs)
+ * against copying the bytes kept by CatalogJsonCache, plain or gzipped.
+ * Run with -Djmh.args="CatalogJsonBenchmark -prof gc" to also get allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CatalogJsonBenchmark {
+
+    @Param({ "20", "100" })
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private ProductPage page;
+    private CatalogJsonCache.CachedJson cached;
+    private ByteArrayOutputStream out; // stands in for the servlet output stream
+
+    @Setup
+    public void setUp() {
+        objectMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS) // as Spring Boot configures it
+                .build();
+
+        List<ProductResponse> items = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            items.add(new ProductResponse(id, "Product " + id, "A sturdy everyday product, model " + id,
+                    BigDecimal.valueOf(1999 + id, 2), 50, "Acme", new CategoryResponse(1L, "Electronics"),
+                    List.of(new ImageResponse(id, "product-" + id + ".jpg", "/api/images/" + id + "/download")),
+                    0L, Instant.parse("2026-01-01T00:00:00Z")));
+        }
+        page = new ProductPage(items, (long) size);
+
+        CatalogJsonCache cache = new CatalogJsonCache(new ConcurrentMapCacheManager(), objectMapper, 1024);
+        cached = cache.page("bench", () -> page, ProductPage::getItems);
+        out = new ByteArrayOutputStream(64 * 1024);
+    }
+
+    @Benchmark
+    public int serializeEachTime() throws IOException {
+        out.reset();
+        objectMapper.writeValue(out, page);
+        return out.size();
+    }
+
+    @Benchmark
+    public int cachedBytes() {
+        out.reset();
+        out.writeBytes(cached.body());
+        return out.size();
+    }
+
+    @Benchmark
+    public int cachedGzip() {
+        out.reset();
+        out.writeBytes(cached.gzipped());
+        return out.size();
+    }
+}
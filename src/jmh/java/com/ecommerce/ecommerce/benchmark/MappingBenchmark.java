@@ -0,0 +1,173 @@
+package com.ecommerce.ecommerce.benchmark;
+
+import com.ecommerce.ecommerce.dtos.CartItemResponse;
+import com.ecommerce.ecommerce.dtos.CartResponse;
+import com.ecommerce.ecommerce.dtos.OrderItemResponse;
+import com.ecommerce.ecommerce.dtos.OrderResponse;
+import com.ecommerce.ecommerce.dtos.ProductResponse;
+import com.ecommerce.ecommerce.mapper.CartMapper;
+import com.ecommerce.ecommerce.mapper.CartMapperImpl;
+import com.ecommerce.ecommerce.mapper.OrderMapper;
+import com.ecommerce.ecommerce.mapper.OrderMapperImpl;
+import com.ecommerce.ecommerce.mapper.ProductMapper;
+import com.ecommerce.ecommerce.mapper.ProductMapperImpl;
+import com.ecommerce.ecommerce.model.Cart;
+import com.ecommerce.ecommerce.model.CartItem;
+import com.ecommerce.ecommerce.model.Category;
+import com.ecommerce.ecommerce.model.Order;
+import com.ecommerce.ecommerce.model.OrderItem;
+import com.ecommerce.ecommerce.model.Product;
+import com.ecommerce.ecommerce.model.ProductImage;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.convention.MatchingStrategies;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reflective ModelMapper (as configured in ModelMapperConfig) against the generated MapStruct mappers.
+ * Run with -Djmh.args="MappingBenchmark -prof gc" to also get allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    @Param("1000")
+    private int size;
+
+    private ModelMapper modelMapper;
+    private ProductMapper productMapper;
+    private CartMapper cartMapper;
+    private OrderMapper orderMapper;
+
+    private List<Product> products;
+    private Cart cart;
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        modelMapper.getConfiguration()
+                .setMatchingStrategy(MatchingStrategies.STRICT)
+                .setSkipNullEnabled(true);
+
+        productMapper = new ProductMapperImpl();
+        cartMapper = new CartMapperImpl(productMapper);
+        orderMapper = new OrderMapperImpl(productMapper);
+
+        Category category = new Category();
+        category.setId(1L);
+        category.setName("Electronics");
+
+        products = new ArrayList<>(size);
+        cart = new Cart();
+        cart.setId(1L);
+        order = new Order();
+        order.setId(1L);
+        order.setTotalAmount(BigDecimal.ZERO);
+
+        for (long i = 1; i <= size; i++) {
+            Product product = new Product();
+            product.setId(i);
+            product.setName("Product " + i);
+            product.setBrand("Brand " + (i % 20));
+            product.setDescription("Description of product " + i);
+            product.setPrice(BigDecimal.valueOf(i, 2));
+            product.setInventory(100);
+            product.setCategory(category);
+            product.setImages(List.of(image(i * 2, product), image(i * 2 + 1, product)));
+            products.add(product);
+
+            CartItem cartItem = new CartItem();
+            cartItem.setId(i);
+            cartItem.setQuantity(1);
+            cartItem.setCart(cart);
+            cartItem.setProduct(product);
+            cart.getItems().add(cartItem);
+
+            OrderItem orderItem = new OrderItem();
+            orderItem.setId(i);
+            orderItem.setQuantity(1);
+            orderItem.setPrice(product.getPrice());
+            orderItem.setOrder(order);
+            orderItem.setProduct(product);
+            order.getItems().add(orderItem);
+        }
+    }
+
+    private static ProductImage image(long id, Product product) {
+        ProductImage image = new ProductImage();
+        image.setId(id);
+        image.setImageUrl("https://cdn.example.com/" + id + ".jpg");
+        image.setProduct(product);
+        return image;
+    }
+
+    // ---------------- PRODUCTS ----------------
+
+    @Benchmark
+    public List<ProductResponse> productsModelMapper() {
+        return products.stream()
+                .map(product -> modelMapper.map(product, ProductResponse.class))
+                .toList();
+    }
+
+    @Benchmark
+    public List<ProductResponse> productsGenerated() {
+        return productMapper.toResponses(products);
+    }
+
+    // ---------------- CART ----------------
+
+    @Benchmark
+    public CartResponse cartModelMapper() {
+        CartResponse response = new CartResponse();
+        response.setId(cart.getId());
+        response.setItems(cart.getItems().stream()
+                .map(item -> new CartItemResponse(item.getId(), item.getQuantity(),
+                        modelMapper.map(item.getProduct(), ProductResponse.class)))
+                .toList());
+        return response;
+    }
+
+    @Benchmark
+    public CartResponse cartGenerated() {
+        return cartMapper.toResponse(cart);
+    }
+
+    // ---------------- ORDER ----------------
+
+    @Benchmark
+    public OrderResponse orderModelMapper() {
+        OrderResponse response = new OrderResponse();
+        response.setId(order.getId());
+        response.setTotalAmount(order.getTotalAmount());
+        response.setItems(order.getItems().stream()
+                .map(item -> new OrderItemResponse(item.getId(), item.getQuantity(), item.getPrice(),
+                        modelMapper.map(item.getProduct(), ProductResponse.class)))
+                .toList());
+        return response;
+    }
+
+    @Benchmark
+    public OrderResponse orderGenerated() {
+        return orderMapper.toResponse(order);
+    }
+}
@@ -0,0 +1,48 @@
+package com.ecommerce.ecommerce.benchmark;
+
+import com.ecommerce.ecommerce.dtos.OrderResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderServiceBenchmark {
+
+    // Checkout empties the cart, so refill it (untimed) before every call
+    @State(Scope.Thread)
+    public static class FilledCart {
+
+        String userId;
+
+        @Setup(Level.Invocation)
+        public void fill(SeededApplication app) {
+            userId = app.randomUserId();
+            app.fillCart(userId);
+        }
+    }
+
+    @Benchmark
+    public OrderResponse checkout(SeededApplication app, FilledCart cart) {
+        return app.orderService().checkout(cart.userId);
+    }
+
+    @Benchmark
+    public List<OrderResponse> getUserOrders(SeededApplication app) {
+        return app.orderService().getUserOrders(app.randomUserId());
+    }
+}
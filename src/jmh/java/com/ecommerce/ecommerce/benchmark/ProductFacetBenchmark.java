@@ -0,0 +1,68 @@
+package com.ecommerce.ecommerce.benchmark;
+
+import com.ecommerce.ecommerce.dtos.ProductFacets;
+import com.ecommerce.ecommerce.dtos.ProductFilter;
+import com.ecommerce.ecommerce.dtos.ProductIndexRow;
+import com.ecommerce.ecommerce.service.ProductChangedEvent;
+import com.ecommerce.ecommerce.service.ProductFacetIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Facet counts on a synthetic catalog (20 categories, 200 brands, prices up to 2000), without the database.
+ * filter: none, one category, category and brand, a price range cutting through two buckets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class ProductFacetBenchmark {
+
+    @Param("500000")
+    private int products;
+
+    @Param({ "none", "category", "category+brand", "price" })
+    private String filter;
+
+    private ProductFacetIndex index;
+    private ProductFilter productFilter;
+
+    @Setup
+    public void setUp() {
+        index = new ProductFacetIndex(null, new BigDecimal[] {
+                BigDecimal.valueOf(10), BigDecimal.valueOf(25), BigDecimal.valueOf(50), BigDecimal.valueOf(100),
+                BigDecimal.valueOf(250), BigDecimal.valueOf(500), BigDecimal.valueOf(1000) });
+        Random random = new Random(42);
+        for (long id = 1; id <= products; id++) {
+            BigDecimal price = BigDecimal.valueOf(random.nextInt(200_000), 2);
+            index.onProductChanged(new ProductChangedEvent(id, new ProductIndexRow(id, "Product " + id,
+                    "Brand " + random.nextInt(200), null, "Category " + random.nextInt(20), price)));
+        }
+        productFilter = switch (filter) {
+            case "category" -> new ProductFilter("Category 3", null, null, null);
+            case "category+brand" -> new ProductFilter("Category 3", "Brand 42", null, null);
+            case "price" -> new ProductFilter(null, null, new BigDecimal("19.99"), new BigDecimal("74.99"));
+            default -> new ProductFilter();
+        };
+    }
+
+    @Benchmark
+    public ProductFacets count() {
+        return index.count(productFilter);
+    }
+}
@@ -0,0 +1,72 @@
+package com.ecommerce.ecommerce.benchmark;
+
+import com.ecommerce.ecommerce.dtos.ProductIndexRow;
+import com.ecommerce.ecommerce.service.ProductChangedEvent;
+import com.ecommerce.ecommerce.service.ProductSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query latency of the in-memory search index on a synthetic catalog, without the database.
+ * Sample mode reports percentiles; query picks a rare word, a common word, two words and a short prefix.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class ProductSearchBenchmark {
+
+    private static final String[] ADJECTIVES = { "compact", "wireless", "classic", "ergonomic", "portable",
+            "premium", "smart", "vintage", "outdoor", "heavy", "light", "silent", "rugged", "slim", "modular" };
+    private static final String[] NOUNS = { "lamp", "chair", "desk", "kettle", "speaker", "headphones", "jacket",
+            "backpack", "monitor", "keyboard", "mouse", "blender", "toaster", "tent", "bottle", "watch", "camera",
+            "drill", "sofa", "mattress", "router", "charger", "sneakers", "helmet", "grill" };
+    private static final String[] BRANDS = { "Acme", "Lumo", "Oakly", "Sitwell", "Nordix", "Vantor", "Kivo",
+            "Brightline", "Zenko", "Marlow" };
+    private static final String[] CATEGORIES = { "Home", "Electronics", "Outdoor", "Kitchen", "Fashion", "Office" };
+
+    @Param("500000")
+    private int products;
+
+    @Param({ "z7", "lamp", "wireless speaker", "hea" })
+    private String query;
+
+    private ProductSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        index = new ProductSearchIndex(null); // fed directly, never rebuilt from the database
+        Random random = new Random(42);
+        for (long id = 1; id <= products; id++) {
+            String noun = NOUNS[random.nextInt(NOUNS.length)];
+            String name = ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + noun
+                    + " " + Long.toString(id % 5000, 36); // model numbers, a few hundred products each
+            String description = "A " + ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + noun + " for everyday use, "
+                    + ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " and "
+                    + ADJECTIVES[random.nextInt(ADJECTIVES.length)] + ".";
+            index.onProductChanged(new ProductChangedEvent(id, new ProductIndexRow(id, name,
+                    BRANDS[random.nextInt(BRANDS.length)], description,
+                    CATEGORIES[random.nextInt(CATEGORIES.length)], BigDecimal.TEN)));
+        }
+    }
+
+    @Benchmark
+    public ProductSearchIndex.Hits firstPage() {
+        return index.search(query, 0, 20);
+    }
+}
@@ -0,0 +1,38 @@
+package com.ecommerce.ecommerce.benchmark;
+
+import com.ecommerce.ecommerce.dtos.ProductFilter;
+import com.ecommerce.ecommerce.dtos.ProductPage;
+import com.ecommerce.ecommerce.dtos.ProductResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductServiceBenchmark {
+
+    @Benchmark
+    public List<ProductResponse> findAll(SeededApplication app) {
+        return app.productService().findAll();
+    }
+
+    @Benchmark
+    public ProductPage findFirstPage(SeededApplication app) {
+        return app.productService().findPage(null, 20, new ProductFilter());
+    }
+
+    @Benchmark
+    public ProductResponse findById(SeededApplication app) {
+        return app.productService().findById(app.randomProductId());
+    }
+}
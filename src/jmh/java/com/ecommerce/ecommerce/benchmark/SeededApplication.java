@@ -0,0 +1,168 @@
+package com.ecommerce.ecommerce.benchmark;
+
+import com.ecommerce.ecommerce.EcommerceMavenApplication;
+import com.ecommerce.ecommerce.dtos.CartItemRequest;
+import com.ecommerce.ecommerce.model.Category;
+import com.ecommerce.ecommerce.model.Product;
+import com.ecommerce.ecommerce.model.Role;
+import com.ecommerce.ecommerce.model.User;
+import com.ecommerce.ecommerce.repo.CategoryRepository;
+import com.ecommerce.ecommerce.repo.ProductRepository;
+import com.ecommerce.ecommerce.repo.UserRepository;
+import com.ecommerce.ecommerce.service.CartService;
+import com.ecommerce.ecommerce.service.OrderService;
+import com.ecommerce.ecommerce.service.ProductServiceImpl;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Full application context (web server on a random port, no Firebase) on a private in-memory H2 database,
+ * seeded with {@code users} users, {@code products} products and {@code cartItems} lines in every cart.
+ * Override the sizes from the command line, e.g. -Djmh.args="CartServiceBenchmark -p products=100000".
+ */
+@State(Scope.Benchmark)
+public class SeededApplication {
+
+    private static final int CATEGORIES = 20;
+
+    @Param("100")
+    public int users;
+
+    @Param("1000")
+    public int products;
+
+    @Param("10")
+    public int cartItems;
+
+    // jpa or write-behind, e.g. -p cartStore=jpa,write-behind
+    @Param("jpa")
+    public String cartStore;
+
+    private ConfigurableApplicationContext context;
+    private List<String> userIds;
+    private List<Long> productIds;
+    private final Map<String, List<Long>> cartLines = new ConcurrentHashMap<>();
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        // Command-line arguments, so they win over application.properties
+        context = new SpringApplicationBuilder(EcommerceMavenApplication.class)
+                .run("--firebase.enabled=false",
+                        "--server.port=0",
+                        "--spring.main.banner-mode=off",
+                        "--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        // Measure the database and mapping path, not the catalog cache
+                        "--spring.cache.type=none",
+                        "--cart.store=" + cartStore,
+                        "--cart.write-behind.journal-dir=" + Files.createTempDirectory("bench-cart-journal"),
+                        "--logging.level.root=WARN");
+        seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    private void seed() {
+        List<Category> categories = new ArrayList<>();
+        for (int i = 0; i < CATEGORIES; i++) {
+            Category category = new Category();
+            category.setName("Category " + i);
+            categories.add(category);
+        }
+        categories = bean(CategoryRepository.class).saveAll(categories);
+
+        List<Product> newProducts = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            Product product = new Product();
+            product.setName("Product " + i);
+            product.setBrand("Brand " + (i % 50));
+            product.setDescription("Description of product " + i);
+            product.setPrice(BigDecimal.valueOf(100 + i % 10_000, 2));
+            product.setInventory(1_000_000_000); // never the limiting factor here
+            product.setCategory(categories.get(i % CATEGORIES));
+            newProducts.add(product);
+        }
+        productIds = bean(ProductRepository.class).saveAll(newProducts).stream()
+                .map(Product::getId)
+                .toList();
+
+        List<User> newUsers = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            User user = new User();
+            user.setUid("bench-user-" + i);
+            user.setEmail("bench-user-" + i + "@example.com");
+            user.setName("Bench User " + i);
+            user.setRole(Role.CUSTOMER);
+            newUsers.add(user);
+        }
+        userIds = bean(UserRepository.class).saveAll(newUsers).stream()
+                .map(User::getUid)
+                .toList();
+
+        for (String userId : userIds) {
+            fillCart(userId);
+        }
+    }
+
+    // Adds cartItems distinct products to the user's cart
+    public void fillCart(String userId) {
+        int start = ThreadLocalRandom.current().nextInt(productIds.size());
+        List<Long> lines = new ArrayList<>(cartItems);
+        for (int i = 0; i < cartItems; i++) {
+            Long productId = productIds.get((start + i) % productIds.size());
+            cartService().addItemToCart(userId, new CartItemRequest(productId, 1));
+            lines.add(productId);
+        }
+        cartLines.put(userId, lines);
+    }
+
+    public String randomUserId() {
+        return userIds.get(ThreadLocalRandom.current().nextInt(userIds.size()));
+    }
+
+    // A product that already has a line in the user's cart
+    public Long randomCartLine(String userId) {
+        List<Long> lines = cartLines.get(userId);
+        return lines.get(ThreadLocalRandom.current().nextInt(lines.size()));
+    }
+
+    public Long randomProductId() {
+        return productIds.get(ThreadLocalRandom.current().nextInt(productIds.size()));
+    }
+
+    public CartService cartService() {
+        return bean(CartService.class);
+    }
+
+    public OrderService orderService() {
+        return bean(OrderService.class);
+    }
+
+    public ProductServiceImpl productService() {
+        return bean(ProductServiceImpl.class);
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+}
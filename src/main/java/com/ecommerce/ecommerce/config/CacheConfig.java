@@ -0,0 +1,41 @@
+package com.ecommerce.ecommerce.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+// Just outside @Transactional: hits open no transaction, and puts happen only after a commit
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig {
+
+    // Single products by id
+    public static final String PRODUCTS = "products";
+
+    // Listing pages (capped findAll + keyset pages), keyed by cursor/limit/filter
+    public static final String PRODUCT_PAGES = "productPages";
+
+    // The same responses serialized to JSON bytes (see CatalogJsonCache), evicted alongside the two above
+    public static final String PRODUCT_JSON = "productJson";
+    public static final String PRODUCT_PAGE_JSON = "productPageJson";
+
+    // Only applied when spring.cache.type=caffeine; spring.cache.type=none turns caching off
+    @Bean
+    CacheManagerCustomizer<CaffeineCacheManager> catalogCacheCustomizer(
+            @Value("${catalog.cache.products.spec}") String productsSpec,
+            @Value("${catalog.cache.pages.spec}") String pagesSpec,
+            @Value("${catalog.cache.products-json.spec:${catalog.cache.products.spec}}") String productsJsonSpec,
+            @Value("${catalog.cache.pages-json.spec:${catalog.cache.pages.spec}}") String pagesJsonSpec) {
+        return cacheManager -> {
+            cacheManager.registerCustomCache(PRODUCTS, Caffeine.from(productsSpec).build());
+            cacheManager.registerCustomCache(PRODUCT_PAGES, Caffeine.from(pagesSpec).build());
+            cacheManager.registerCustomCache(PRODUCT_JSON, Caffeine.from(productsJsonSpec).build());
+            cacheManager.registerCustomCache(PRODUCT_PAGE_JSON, Caffeine.from(pagesJsonSpec).build());
+        };
+    }
+}
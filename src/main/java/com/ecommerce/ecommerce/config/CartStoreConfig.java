@@ -0,0 +1,12 @@
+package com.ecommerce.ecommerce.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// The write-behind cart store flushes on a schedule
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "cart.store", havingValue = "write-behind")
+public class CartStoreConfig {
+}
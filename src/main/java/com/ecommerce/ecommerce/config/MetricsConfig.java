@@ -0,0 +1,25 @@
+package com.ecommerce.ecommerce.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Endpoints, repositories and the Hikari pool are timed by Spring Boot; this adds @Timed and SQL counts
+@Configuration
+public class MetricsConfig {
+
+    // Makes @Timed on the services record timers
+    @Bean
+    TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    // Lets SqlCountFilter see every statement Hibernate prepares
+    @Bean
+    HibernatePropertiesCustomizer sqlStatementCounter() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new SqlStatementCounter());
+    }
+}
@@ -0,0 +1,36 @@
+package com.ecommerce.ecommerce.config;
+
+import com.ecommerce.ecommerce.repo.ReactiveProductRepository;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Reactive catalog reads (/api/reactive/products) over R2DBC, against the same database as JPA.
+// Off unless catalog.reactive.url is set. The pool is deliberately not a bean of its own: with an R2DBC
+// ConnectionFactory in the context, Spring Boot stops configuring the JDBC DataSource that JPA runs on.
+@Configuration
+@ConditionalOnProperty(name = "catalog.reactive.url")
+public class ReactiveCatalogConfig {
+
+    @Bean
+    ReactiveProductRepository reactiveProductRepository(
+            @Value("${catalog.reactive.url}") String url,
+            @Value("${catalog.reactive.username:${spring.datasource.username:}}") String username,
+            @Value("${catalog.reactive.password:${spring.datasource.password:}}") String password,
+            @Value("${catalog.reactive.pool.max-size:20}") int maxSize) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .name("catalog-reactive")
+                .maxSize(maxSize)
+                .build());
+        return new ReactiveProductRepository(pool);
+    }
+}
@@ -0,0 +1,70 @@
+package com.ecommerce.ecommerce.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+// Read-only transactions go to a replica pool once datasource.replica.url is set; without it there is
+// just the one spring.datasource pool. Flyway migrations only ever run against the primary.
+@Configuration
+@ConditionalOnProperty(name = "datasource.replica.url")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("datasource.replica.hikari")
+    HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                       @Value("${datasource.replica.url}") String url,
+                                       @Value("${datasource.replica.username:#{null}}") String username,
+                                       @Value("${datasource.replica.password:#{null}}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(username != null ? username : properties.determineUsername())
+                .password(password != null ? password : properties.determinePassword())
+                .build();
+        dataSource.setPoolName("replica");
+        return dataSource;
+    }
+
+    @Bean
+    RecentWriters recentWriters(
+            @Value("${datasource.replica.read-your-writes-window:5s}") Duration window,
+            @Value("${datasource.replica.read-your-writes-max-users:100000}") long maxUsers) {
+        return new RecentWriters(window, maxUsers);
+    }
+
+    // What JPA, JdbcTemplate and everything else injecting a DataSource gets
+    @Bean
+    @Primary
+    DataSource dataSource(HikariDataSource primaryDataSource,
+                          HikariDataSource replicaDataSource,
+                          RecentWriters recentWriters) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(recentWriters);
+        routing.setTargetDataSources(Map.of(
+                ReadWriteRoutingDataSource.Route.PRIMARY, primaryDataSource,
+                ReadWriteRoutingDataSource.Route.REPLICA, replicaDataSource));
+        routing.setDefaultTargetDataSource(primaryDataSource);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
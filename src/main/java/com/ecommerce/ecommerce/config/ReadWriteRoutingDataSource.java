@@ -0,0 +1,39 @@
+package com.ecommerce.ecommerce.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Picks the replica for read-only transactions and the primary for everything else, including work
+ * outside a transaction. Must sit behind a LazyConnectionDataSourceProxy: the read-only flag is only
+ * known once the transaction has begun, after the JPA transaction manager asked for its connection.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route { PRIMARY, REPLICA }
+
+    private final RecentWriters recentWriters;
+
+    public ReadWriteRoutingDataSource(RecentWriters recentWriters) {
+        this.recentWriters = recentWriters;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return Route.PRIMARY;
+        }
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            // Read-your-writes: the replica may not have this user's last commit yet
+            return recentWriters.isCurrentUserRecent() ? Route.PRIMARY : Route.REPLICA;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.markCurrentUser();
+            }
+        });
+        return Route.PRIMARY;
+    }
+}
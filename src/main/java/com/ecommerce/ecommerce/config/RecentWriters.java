@@ -0,0 +1,47 @@
+package com.ecommerce.ecommerce.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+
+/**
+ * Users who committed a write within the last {@code window}. Until the replica has had time to apply it,
+ * their read-only transactions stay on the primary, so an order shows up in the history right after checkout.
+ * Anonymous requests and background threads are never tracked.
+ */
+public class RecentWriters {
+
+    private final Cache<String, Boolean> writers;
+
+    public RecentWriters(Duration window, long maxSize) {
+        this.writers = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public void markCurrentUser() {
+        String uid = currentUser();
+        if (uid != null) {
+            writers.put(uid, Boolean.TRUE);
+        }
+    }
+
+    public boolean isCurrentUserRecent() {
+        String uid = currentUser();
+        return uid != null && writers.getIfPresent(uid) != null;
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
@@ -0,0 +1,33 @@
+package com.ecommerce.ecommerce.config;
+
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.ehcache.xml.XmlConfiguration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.UUID;
+
+// Hibernate's second-level cache regions, configured in ehcache.xml
+@Configuration
+public class SecondLevelCacheConfig {
+
+    // One cache manager per application context. Left to Hibernate, every context in the JVM would share
+    // one by URI, and contexts on different databases (as in the tests) would see each other's rows.
+    @Bean(destroyMethod = "close")
+    CacheManager hibernateCacheManager() {
+        EhcacheCachingProvider provider =
+                (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        XmlConfiguration regions = new XmlConfiguration(getClass().getResource("/ehcache.xml"));
+        return provider.getCacheManager(URI.create("urn:hibernate-l2:" + UUID.randomUUID()), regions);
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer secondLevelCacheManager(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+}
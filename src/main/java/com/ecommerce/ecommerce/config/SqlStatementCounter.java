@@ -0,0 +1,28 @@
+package com.ecommerce.ecommerce.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Counts statements prepared on the current thread between start() and stop(); a JDBC batch counts once
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    public static void start() {
+        COUNT.set(new int[1]);
+    }
+
+    public static int stop() {
+        int[] count = COUNT.get();
+        COUNT.remove();
+        return count != null ? count[0] : 0;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+}
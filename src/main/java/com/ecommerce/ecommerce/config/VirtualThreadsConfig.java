@@ -0,0 +1,26 @@
+package com.ecommerce.ecommerce.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+
+// With the virtual profile, Tomcat and the @Async / @Scheduled executors run on virtual threads (Java 21+)
+@Configuration
+@Profile("virtual")
+public class VirtualThreadsConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadsConfig.class);
+
+    // Spring Boot silently keeps platform threads on older runtimes
+    @EventListener(ApplicationReadyEvent.class)
+    public void warnWhenUnsupported(ApplicationReadyEvent event) {
+        if (!Threading.VIRTUAL.isActive(event.getApplicationContext().getEnvironment())) {
+            log.warn("Profile 'virtual' is active but Java {} has no virtual threads; running on platform threads",
+                    Runtime.version().feature());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.ecommerce.ecommerce.controller;
+
+import com.ecommerce.ecommerce.dtos.CacheStatsResponse;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Objects;
+
+@RestController
+@RequestMapping("/api/admin/caches")
+public class AdminCacheController {
+
+    private final CacheManager cacheManager;
+
+    public AdminCacheController(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    // 📊 HIT RATIO AND EVICTIONS PER CACHE (empty when caching is disabled)
+    @GetMapping
+    public ResponseEntity<List<CacheStatsResponse>> getStats() {
+        List<CacheStatsResponse> stats = cacheManager.getCacheNames().stream()
+                .map(cacheManager::getCache)
+                .filter(Objects::nonNull)
+                .filter(CaffeineCache.class::isInstance)
+                .map(this::toResponse)
+                .toList();
+        return ResponseEntity.ok(stats);
+    }
+
+    private CacheStatsResponse toResponse(Cache cache) {
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache =
+                ((CaffeineCache) cache).getNativeCache();
+        CacheStats stats = nativeCache.stats();
+        return new CacheStatsResponse(cache.getName(),
+                nativeCache.estimatedSize(),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount());
+    }
+}
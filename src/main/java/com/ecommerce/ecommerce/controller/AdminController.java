@@ -1,6 +1,7 @@
 package com.ecommerce.ecommerce.controller;
 
 import com.ecommerce.ecommerce.dtos.ApiResponse;
+import com.ecommerce.ecommerce.security.FirebaseTokenCache;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseAuthException;
 import org.springframework.http.ResponseEntity;
@@ -12,10 +13,18 @@ import java.util.Map;
 @RequestMapping("/admin")
 public class AdminController {
 
+    private final FirebaseTokenCache tokenCache;
+
+    public AdminController(FirebaseTokenCache tokenCache) {
+        this.tokenCache = tokenCache;
+    }
+
     @PostMapping("/setRole")
     public ResponseEntity<ApiResponse> setRole(@RequestParam String uid, @RequestParam String role) throws FirebaseAuthException {
 
         FirebaseAuth.getInstance().setCustomUserClaims(uid, Map.of("role", role));
+        // Cached tokens still carry the old role claim
+        tokenCache.revokeUser(uid);
 
         ApiResponse response = new ApiResponse("Role " + role + " assigned to user " + uid, null);
         return ResponseEntity.ok(response);
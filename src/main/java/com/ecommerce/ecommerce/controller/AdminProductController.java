@@ -1,11 +1,19 @@
 package com.ecommerce.ecommerce.controller;
 
+import com.ecommerce.ecommerce.dtos.ImportReport;
+import com.ecommerce.ecommerce.dtos.ProductFilter;
+import com.ecommerce.ecommerce.dtos.ProductPage;
 import com.ecommerce.ecommerce.dtos.ProductRequest;
 import com.ecommerce.ecommerce.dtos.ProductResponse;
+import com.ecommerce.ecommerce.service.ProductImportService;
 import com.ecommerce.ecommerce.service.ProductService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -13,9 +21,11 @@ import java.util.List;
 public class AdminProductController {
 
     private final ProductService productService;
+    private final ProductImportService productImportService;
 
-    public AdminProductController(ProductService productService) {
+    public AdminProductController(ProductService productService, ProductImportService productImportService) {
         this.productService = productService;
+        this.productImportService = productImportService;
     }
 
     // ➕ CREATE PRODUCT
@@ -25,6 +35,15 @@ public class AdminProductController {
         return ResponseEntity.ok(created);
     }
 
+    // 📦 BULK IMPORT: CSV with a header row or NDJSON, streamed and committed in chunks
+    @PostMapping(value = "/import", consumes = { "text/csv", "application/x-ndjson" })
+    public ResponseEntity<ImportReport> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+        ImportReport report = productImportService.importProducts(body, MediaType.parseMediaType(contentType));
+        return ResponseEntity.ok(report);
+    }
+
     // ✏ UPDATE PRODUCT
     @PutMapping("/{id}")
     public ResponseEntity<ProductResponse> updateProduct(
@@ -43,12 +62,21 @@ public class AdminProductController {
         return ResponseEntity.noContent().build();
     }
 
-    // 📋 LIST ALL PRODUCTS
+    // 📋 LIST ALL PRODUCTS (capped)
     @GetMapping
     public ResponseEntity<List<ProductResponse>> getAll() {
         return ResponseEntity.ok(productService.findAll());
     }
 
+    // 📄 LIST PRODUCTS PAGE BY PAGE
+    @GetMapping("/page")
+    public ResponseEntity<ProductPage> getPage(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            ProductFilter filter) {
+        return ResponseEntity.ok(productService.findPage(cursor, limit, filter));
+    }
+
     // 📌 GET SINGLE PRODUCT
     @GetMapping("/{id}")
     public ResponseEntity<ProductResponse> getOne(@PathVariable Long id) {
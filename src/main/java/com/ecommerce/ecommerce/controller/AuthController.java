@@ -1,8 +1,8 @@
 package com.ecommerce.ecommerce.controller;
 
 import com.ecommerce.ecommerce.model.User;
+import com.ecommerce.ecommerce.security.FirebaseTokenCache;
 import com.ecommerce.ecommerce.service.UserService;
-import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseAuthException;
 import com.google.firebase.auth.FirebaseToken;
 import org.springframework.http.ResponseEntity;
@@ -13,9 +13,11 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private final UserService userService;
+    private final FirebaseTokenCache tokenCache;
 
-    public AuthController(UserService userService) {
+    public AuthController(UserService userService, FirebaseTokenCache tokenCache) {
         this.userService = userService;
+        this.tokenCache = tokenCache;
     }
 
     @PostMapping("/login")
@@ -26,7 +28,7 @@ public class AuthController {
             }
 
             String idToken = authHeader.substring(7);
-            FirebaseToken decodedToken = FirebaseAuth.getInstance().verifyIdToken(idToken);
+            FirebaseToken decodedToken = tokenCache.verify(idToken); // already verified by the filter, so a cache hit
 
             User user = userService.createOrUpdateUser(decodedToken);
 
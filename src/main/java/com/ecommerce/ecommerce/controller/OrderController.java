@@ -1,11 +1,14 @@
 package com.ecommerce.ecommerce.controller;
 
 import com.ecommerce.ecommerce.dtos.ApiResponse;
+import com.ecommerce.ecommerce.dtos.OrderHistoryPage;
 import com.ecommerce.ecommerce.dtos.OrderResponse;
+import com.ecommerce.ecommerce.dtos.VersionStamp;
 import com.ecommerce.ecommerce.service.OrderService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -27,7 +30,18 @@ public class OrderController {
         return ResponseEntity.ok(new ApiResponse("Order created successfully", order));
     }
 
-    // Get all orders for current user
+    // Order history, newest first: summaries only, follow nextCursor for older orders
+    @GetMapping("/history")
+    public ResponseEntity<OrderHistoryPage> getOrderHistory(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            Authentication authentication) {
+        String userId = authentication.getName();
+        return ResponseEntity.ok(orderService.getOrderHistory(userId, cursor, limit));
+    }
+
+    // Get all orders for current user, with items
+    // Grows with every order placed; kept for existing clients, new ones should page /history
     @GetMapping
     public ResponseEntity<List<OrderResponse>> getUserOrders(Authentication authentication) {
         String userId = authentication.getName();
@@ -36,12 +50,18 @@ public class OrderController {
     }
 
     // Get single order by ID
+    // A matching If-None-Match / If-Modified-Since gets a 304 before the order and its items are loaded
     @GetMapping("/{orderId}")
     public ResponseEntity<OrderResponse> getOrderById(
             @PathVariable Long orderId,
-            Authentication authentication) {
+            Authentication authentication,
+            WebRequest request) {
         String userId = authentication.getName();
+        VersionStamp version = orderService.getOrderVersion(userId, orderId);
+        if (request.checkNotModified(version.eTag("order", orderId), version.lastModified())) {
+            return null; // 304, ETag and Last-Modified already set
+        }
         OrderResponse order = orderService.getOrderById(userId, orderId);
-        return ResponseEntity.ok(order);
+        return ResponseEntity.ok(order); // ETag and Last-Modified were set by checkNotModified
     }
 }
@@ -1,14 +1,26 @@
 package com.ecommerce.ecommerce.controller;
 
-import com.ecommerce.ecommerce.dtos.ProductResponse;
+import com.ecommerce.ecommerce.dtos.ProductFacets;
+import com.ecommerce.ecommerce.dtos.ProductFilter;
+import com.ecommerce.ecommerce.dtos.ProductPage;
+import com.ecommerce.ecommerce.dtos.ProductSearchPage;
+import com.ecommerce.ecommerce.dtos.VersionStamp;
 import com.ecommerce.ecommerce.model.Product;
 import com.ecommerce.ecommerce.repo.ProductRepository;
+import com.ecommerce.ecommerce.service.CatalogJsonCache;
+import com.ecommerce.ecommerce.service.CatalogJsonCache.CachedJson;
 import com.ecommerce.ecommerce.service.ProductService;
 
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
-import java.util.List;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/products")
@@ -16,21 +28,97 @@ public class ProductController {
 
 
     private final ProductService productService;
+    private final CatalogJsonCache jsonCache;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, CatalogJsonCache jsonCache) {
         this.productService = productService;
+        this.jsonCache = jsonCache;
     }
 
-    // List all products (public)
-
+    // List all products (public, capped)
+    // Sent as cached JSON bytes; a matching If-None-Match gets a 304
     @GetMapping
-    public ResponseEntity<List<ProductResponse>> getAll() {
-        return ResponseEntity.ok(productService.findAll());
+    public void getAll(ServletWebRequest request, HttpServletResponse response) throws IOException {
+        writeJson(jsonCache.page("all", productService::findAll, Function.identity()), request, response);
+    }
+
+    // 📄 LIST PRODUCTS PAGE BY PAGE (?cursor=&limit=&category=&brand=&minPrice=&maxPrice=)
+    @GetMapping("/page")
+    public void getPage(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            ProductFilter filter,
+            ServletWebRequest request,
+            HttpServletResponse response) throws IOException {
+        CachedJson page = jsonCache.page(Arrays.asList(cursor, limit, filter),
+                () -> productService.findPage(cursor, limit, filter), ProductPage::getItems);
+        writeJson(page, request, response);
+    }
+
+    // 🧮 FACET COUNTS PER CATEGORY, BRAND AND PRICE BUCKET (?category=&brand=&minPrice=&maxPrice=)
+    @GetMapping("/facets")
+    public ResponseEntity<ProductFacets> getFacets(ProductFilter filter) {
+        return ResponseEntity.ok(productService.facets(filter));
+    }
+
+    // 🔍 SEARCH BY NAME, BRAND, DESCRIPTION AND CATEGORY (?q=&page=&size=), best match first
+    @GetMapping("/search")
+    public ResponseEntity<ProductSearchPage> search(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productService.search(query, page, size));
     }
 
     // 📌 GET SINGLE PRODUCT
+    // Not yet serialized: If-None-Match / If-Modified-Since are checked against the version alone first
     @GetMapping("/{id}")
-    public ResponseEntity<ProductResponse> getById(@PathVariable Long id) {
-        return ResponseEntity.ok(productService.findById(id));
+    public void getById(@PathVariable Long id, ServletWebRequest request, HttpServletResponse response)
+            throws IOException {
+        CachedJson product = jsonCache.cachedProduct(id);
+        if (product == null) {
+            VersionStamp current = productService.findVersion(id);
+            if (request.checkNotModified(current.eTag("product", id), current.lastModified())) {
+                return; // 304
+            }
+            product = jsonCache.product(id, () -> productService.findById(id));
+        }
+        writeJson(product, request, response);
+    }
+
+    // Copies the cached bytes to the response, gzipped if the client takes it, or answers 304
+    private static void writeJson(CachedJson json, ServletWebRequest request, HttpServletResponse response)
+            throws IOException {
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (request.checkNotModified(json.eTag(), json.lastModified())) {
+            return;
+        }
+        // Set again: an earlier check may have set the validators of a newer version than these bytes
+        response.setHeader(HttpHeaders.ETAG, json.eTag());
+        if (json.lastModified() >= 0) {
+            response.setDateHeader(HttpHeaders.LAST_MODIFIED, json.lastModified());
+        }
+        byte[] body = json.body();
+        if (json.gzipped() != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            body = json.gzipped();
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    // "gzip" listed without q=0
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
     }
 }
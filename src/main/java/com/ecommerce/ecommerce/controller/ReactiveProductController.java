@@ -0,0 +1,64 @@
+package com.ecommerce.ecommerce.controller;
+
+import com.ecommerce.ecommerce.dtos.ProductFilter;
+import com.ecommerce.ecommerce.dtos.ProductPage;
+import com.ecommerce.ecommerce.dtos.ProductResponse;
+import com.ecommerce.ecommerce.dtos.ProductSearchPage;
+import com.ecommerce.ecommerce.service.ReactiveProductService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+// The public catalog reads of ProductController, served asynchronously from R2DBC: the request thread is
+// released while the database works. Same parameters and response bodies; no ETags or response cache.
+@RestController
+@RequestMapping("/api/reactive/products")
+@ConditionalOnProperty(name = "catalog.reactive.url")
+public class ReactiveProductController {
+
+    private final ReactiveProductService productService;
+
+    public ReactiveProductController(ReactiveProductService productService) {
+        this.productService = productService;
+    }
+
+    // List all products (public, capped)
+    @GetMapping
+    public Mono<List<ProductResponse>> getAll() {
+        return productService.findAll();
+    }
+
+    // 🌊 STREAM EVERY PRODUCT AS NDJSON, ONE PER LINE (?category=&brand=&minPrice=&maxPrice=), uncapped
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ProductResponse> stream(ProductFilter filter) {
+        return productService.stream(filter);
+    }
+
+    // 📄 LIST PRODUCTS PAGE BY PAGE (?cursor=&limit=&category=&brand=&minPrice=&maxPrice=)
+    @GetMapping("/page")
+    public Mono<ProductPage> getPage(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            ProductFilter filter) {
+        return productService.findPage(cursor, limit, filter);
+    }
+
+    // 🔍 SEARCH BY NAME, BRAND, DESCRIPTION AND CATEGORY (?q=&page=&size=), best match first
+    @GetMapping("/search")
+    public Mono<ProductSearchPage> search(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return productService.search(query, page, size);
+    }
+
+    // 📌 GET SINGLE PRODUCT
+    @GetMapping("/{id}")
+    public Mono<ProductResponse> getById(@PathVariable Long id) {
+        return productService.findById(id);
+    }
+}
@@ -0,0 +1,28 @@
+package com.ecommerce.ecommerce.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportReport {
+
+    private long rowsRead;
+    private long imported;
+    private long failed;
+    private List<ImportError> errors = new ArrayList<>(); // first catalog.import.max-errors failures only
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ImportError {
+
+        private long line;
+        private String message;
+    }
+}
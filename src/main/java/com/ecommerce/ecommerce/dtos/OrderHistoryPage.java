@@ -0,0 +1,16 @@
+package com.ecommerce.ecommerce.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderHistoryPage {
+
+    private List<OrderSummary> items; // newest first
+    private Long nextCursor; // pass back as ?cursor= to get older orders, null on the last page
+}
@@ -0,0 +1,20 @@
+package com.ecommerce.ecommerce.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// One line of the order history; the items come from GET /api/orders/{id}
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderSummary {
+
+    private Long id;
+    private Instant createdAt;
+    private BigDecimal totalAmount;
+    private long itemCount;
+}
@@ -0,0 +1,40 @@
+package com.ecommerce.ecommerce.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Facet counts under a ProductFilter. Each facet applies every filter except its own,
+// so picking a category still shows how many products the other categories would give.
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductFacets {
+
+    private long total; // products matching the whole filter
+    private List<ValueCount> categories; // most products first
+    private List<ValueCount> brands;
+    private List<PriceRangeCount> prices; // every configured bucket, cheapest first
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ValueCount {
+
+        private String value;
+        private long count;
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class PriceRangeCount {
+
+        private BigDecimal min;
+        private BigDecimal max; // exclusive, null for the last bucket
+        private long count;
+    }
+}
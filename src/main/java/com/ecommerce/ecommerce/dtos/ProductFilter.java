@@ -0,0 +1,19 @@
+package com.ecommerce.ecommerce.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// Optional listing filters, bound from query parameters
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductFilter {
+
+    private String category;
+    private String brand;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+}
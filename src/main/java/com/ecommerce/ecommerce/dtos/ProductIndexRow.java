@@ -0,0 +1,21 @@
+package com.ecommerce.ecommerce.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// What the in-memory catalog indexes (search, facets) know of one product, read without loading the entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductIndexRow {
+
+    private Long id;
+    private String name;
+    private String brand;
+    private String description;
+    private String category;
+    private BigDecimal price;
+}
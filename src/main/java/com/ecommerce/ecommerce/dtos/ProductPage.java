@@ -0,0 +1,16 @@
+package com.ecommerce.ecommerce.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductPage {
+
+    private List<ProductResponse> items;
+    private Long nextCursor; // pass back as ?cursor= to get the next page, null on the last page
+}
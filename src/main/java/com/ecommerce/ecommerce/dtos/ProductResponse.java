@@ -8,6 +8,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 
 @Data
@@ -38,4 +39,7 @@ public class ProductResponse {
     private CategoryResponse category;
 
     private List<ImageResponse> images;
+
+    private Long version;
+    private Instant updatedAt;
 }
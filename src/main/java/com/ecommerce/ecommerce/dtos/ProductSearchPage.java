@@ -0,0 +1,18 @@
+package com.ecommerce.ecommerce.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductSearchPage {
+
+    private List<ProductResponse> items; // best match first
+    private int page;
+    private int size;
+    private long total; // all matching products, including those past the last reachable page
+}
@@ -0,0 +1,27 @@
+package com.ecommerce.ecommerce.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// Version and last write time of one row, read without loading the entity; backs conditional GETs
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class VersionStamp {
+
+    private Long version;
+    private Instant updatedAt;
+
+    // Strong ETag: the version changes with every write to the row
+    public String eTag(String kind, Long id) {
+        return "\"" + kind + "-" + id + "-" + version + "\"";
+    }
+
+    // Epoch millis for Last-Modified, -1 for rows written before the column existed
+    public long lastModified() {
+        return updatedAt != null ? updatedAt.toEpochMilli() : -1;
+    }
+}
@@ -3,13 +3,15 @@ package com.ecommerce.ecommerce.exceptions;
 import com.ecommerce.ecommerce.controller.AdminController;
 import com.ecommerce.ecommerce.dtos.ApiResponse;
 import com.google.firebase.auth.FirebaseAuthException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 @RestControllerAdvice(assignableTypes = { AdminController.class,
-        com.ecommerce.ecommerce.controller.AdminProductController.class })
+        com.ecommerce.ecommerce.controller.AdminProductController.class,
+        com.ecommerce.ecommerce.controller.AdminCacheController.class })
 public class AdminControllerAdvice {
 
     @ExceptionHandler(FirebaseAuthException.class)
@@ -24,6 +26,13 @@ public class AdminControllerAdvice {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
     }
 
+    // The product changed between reading and saving it (another edit, or a checkout taking stock)
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiResponse> handleOptimisticLockingFailure(OptimisticLockingFailureException e) {
+        ApiResponse errorResponse = new ApiResponse("Product was modified concurrently, please retry", null);
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<ApiResponse> handleRuntimeException(RuntimeException e) {
         // Check if it's a "not found" type of exception
@@ -2,14 +2,28 @@ package com.ecommerce.ecommerce.exceptions;
 
 import com.ecommerce.ecommerce.controller.CartController;
 import com.ecommerce.ecommerce.dtos.ApiResponse;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.util.Locale;
+
 @RestControllerAdvice(assignableTypes = CartController.class)
 public class CartControllerAdvice {
 
+    // Only a duplicate cart line is a conflict the client can retry; other violations are errors
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ApiResponse> handleDataIntegrityViolation(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        if (message == null || !message.toLowerCase(Locale.ROOT).contains("uk_cart_item_cart_product")) {
+            return handleRuntimeException(e);
+        }
+        ApiResponse errorResponse = new ApiResponse("Cart was modified concurrently, please retry", null);
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<ApiResponse> handleRuntimeException(RuntimeException e) {
         // Check if it's a "not found" type of exception
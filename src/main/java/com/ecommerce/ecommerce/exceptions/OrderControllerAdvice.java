@@ -17,6 +17,11 @@ public class OrderControllerAdvice {
             ApiResponse errorResponse = new ApiResponse(e.getMessage(), null);
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
         }
+        // Not enough stock left for one of the cart lines
+        if (e.getMessage() != null && e.getMessage().contains("insufficient stock")) {
+            ApiResponse errorResponse = new ApiResponse(e.getMessage(), null);
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+        }
         // Check for empty cart or similar validation errors
         if (e.getMessage() != null
                 && (e.getMessage().contains("empty") || e.getMessage().contains("Cannot checkout"))) {
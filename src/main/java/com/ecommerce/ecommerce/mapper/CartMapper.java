@@ -0,0 +1,19 @@
+package com.ecommerce.ecommerce.mapper;
+
+import com.ecommerce.ecommerce.dtos.CartItemResponse;
+import com.ecommerce.ecommerce.dtos.CartResponse;
+import com.ecommerce.ecommerce.model.Cart;
+import com.ecommerce.ecommerce.model.CartItem;
+import org.mapstruct.InjectionStrategy;
+import org.mapstruct.Mapper;
+import org.mapstruct.MappingConstants;
+
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING,
+        uses = ProductMapper.class,
+        injectionStrategy = InjectionStrategy.CONSTRUCTOR)
+public interface CartMapper {
+
+    CartResponse toResponse(Cart cart);
+
+    CartItemResponse toResponse(CartItem item);
+}
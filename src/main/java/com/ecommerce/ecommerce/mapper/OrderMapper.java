@@ -0,0 +1,19 @@
+package com.ecommerce.ecommerce.mapper;
+
+import com.ecommerce.ecommerce.dtos.OrderItemResponse;
+import com.ecommerce.ecommerce.dtos.OrderResponse;
+import com.ecommerce.ecommerce.model.Order;
+import com.ecommerce.ecommerce.model.OrderItem;
+import org.mapstruct.InjectionStrategy;
+import org.mapstruct.Mapper;
+import org.mapstruct.MappingConstants;
+
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING,
+        uses = ProductMapper.class,
+        injectionStrategy = InjectionStrategy.CONSTRUCTOR)
+public interface OrderMapper {
+
+    OrderResponse toResponse(Order order);
+
+    OrderItemResponse toResponse(OrderItem item);
+}
@@ -0,0 +1,40 @@
+package com.ecommerce.ecommerce.mapper;
+
+import com.ecommerce.ecommerce.dtos.CategoryResponse;
+import com.ecommerce.ecommerce.dtos.ImageResponse;
+import com.ecommerce.ecommerce.dtos.ProductRequest;
+import com.ecommerce.ecommerce.dtos.ProductResponse;
+import com.ecommerce.ecommerce.model.Category;
+import com.ecommerce.ecommerce.model.Product;
+import com.ecommerce.ecommerce.model.ProductImage;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingConstants;
+
+import java.util.List;
+
+// Implementation is generated at compile time by MapStruct (plain getters/setters, no reflection)
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING)
+public interface ProductMapper {
+
+    ProductResponse toResponse(Product product);
+
+    List<ProductResponse> toResponses(List<Product> products);
+
+    CategoryResponse toResponse(Category category);
+
+    @Mapping(target = "imageId", source = "id")
+    @Mapping(target = "downloadUrl", source = "imageUrl")
+    @Mapping(target = "imageName", ignore = true)
+    ImageResponse toResponse(ProductImage image);
+
+    // Category is resolved by the caller
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "category", ignore = true)
+    @Mapping(target = "images", ignore = true)
+    @Mapping(target = "cartItems", ignore = true)
+    @Mapping(target = "orderItems", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    Product toEntity(ProductRequest request);
+}
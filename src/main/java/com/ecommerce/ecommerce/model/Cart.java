@@ -9,16 +9,18 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(indexes = @Index(name = "idx_cart_user_id", columnList = "user_id"))
 @Getter
 @Setter
 public class Cart {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cart_id")
+    @SequenceGenerator(name = "cart_id", sequenceName = "cart_seq", allocationSize = 50)
     private Long id;
 
     // User relationship - ignore in JSON to prevent circular references
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY) // never read; queries go by user_id
     @JoinColumn(name = "user_id")
     @JsonIgnore
     private User user;
@@ -6,12 +6,16 @@ import lombok.Getter;
 import lombok.Setter;
 
 @Entity
+// One line per product and cart; repeated adds increment its quantity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_cart_item_cart_product",
+        columnNames = { "cart_id", "product_id" }))
 @Getter
 @Setter
 public class CartItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cart_item_id")
+    @SequenceGenerator(name = "cart_item_id", sequenceName = "cart_item_seq", allocationSize = 50)
     private Long id;
 
     private Integer quantity;
@@ -3,16 +3,22 @@ package com.ecommerce.ecommerce.model;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
 @Entity
+// One row per name; CategoryResolver relies on it to settle concurrent creates
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_category_name", columnNames = "name"))
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 public class Category {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "category_id")
+    @SequenceGenerator(name = "category_id", sequenceName = "category_seq", allocationSize = 50)
     private Long id;
 
     private String name;
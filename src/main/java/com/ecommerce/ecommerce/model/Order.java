@@ -3,24 +3,41 @@ package com.ecommerce.ecommerce.model;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders") // "order" is reserved SQL keyword
+// "order" is reserved SQL keyword; the index serves order history, newest first per user
+@Table(name = "orders", indexes = @Index(name = "idx_orders_user_id", columnList = "user_id, id"))
 @Getter
 @Setter
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Ids come from orders_seq 50 at a time, so Hibernate can batch inserts (IDENTITY rules that out)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_id")
+    @SequenceGenerator(name = "orders_id", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
     private BigDecimal totalAmount;
 
-    @ManyToOne
+    @CreationTimestamp
+    @Column(updatable = false)
+    private Instant createdAt;
+
+    // Back the ETag and Last-Modified headers of GET /api/orders/{id}
+    @Version
+    private Long version;
+
+    @UpdateTimestamp
+    private Instant updatedAt;
+
+    @ManyToOne(fetch = FetchType.LAZY) // never read; queries go by user_id
     @JoinColumn(name = "user_id")
     private User user;
 
@@ -7,12 +7,14 @@ import lombok.Setter;
 import java.math.BigDecimal;
 
 @Entity
+@Table(indexes = @Index(name = "idx_order_item_order_id", columnList = "order_id"))
 @Getter
 @Setter
 public class OrderItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_item_id")
+    @SequenceGenerator(name = "order_item_id", sequenceName = "order_item_seq", allocationSize = 50)
     private Long id;
 
     private Integer quantity;
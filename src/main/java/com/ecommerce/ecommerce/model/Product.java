@@ -4,17 +4,29 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_product_category_id", columnList = "category_id, id"),
+        @Index(name = "idx_product_brand_id", columnList = "brand, id"),
+        @Index(name = "idx_product_price", columnList = "price"),
+        @Index(name = "idx_product_category_price", columnList = "category_id, price")
+})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // second-level cache, regions in ehcache.xml
 @Getter
 @Setter
 public class Product {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_id")
+    @SequenceGenerator(name = "product_id", sequenceName = "product_seq", allocationSize = 50)
     private Long id;
 
     private String name;
@@ -23,6 +35,13 @@ public class Product {
     private BigDecimal price;
     private String description;
 
+    // Both change with every write, bulk stock updates included; they back the ETag and Last-Modified headers
+    @Version
+    private Long version;
+
+    @UpdateTimestamp
+    private Instant updatedAt;
+
     // Category relationship
     @ManyToOne
     @JoinColumn(name = "category_id")
@@ -30,6 +49,7 @@ public class Product {
 
     // Product images
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<ProductImage> images;
 
     // Cart items - ignore in JSON to prevent circular references
@@ -0,0 +1,17 @@
+package com.ecommerce.ecommerce.repo;
+
+import com.ecommerce.ecommerce.model.CartItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface CartItemRepository extends JpaRepository<CartItem, Long> {
+
+    // Adds to the cart's line for the product in one statement; returns 0 when there is no such line yet
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update CartItem ci set ci.quantity = ci.quantity + :quantity where ci.cart.id = :cartId and ci.product.id = :productId")
+    int incrementQuantity(@Param("cartId") Long cartId,
+                          @Param("productId") Long productId,
+                          @Param("quantity") int quantity);
+}
@@ -1,11 +1,32 @@
 package com.ecommerce.ecommerce.repo;
 
 import com.ecommerce.ecommerce.model.Cart;
-import com.ecommerce.ecommerce.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
 public interface CartRepository extends JpaRepository<Cart, Long> {
-    Optional<Cart> findByUser(User user);
+    // Cart and its items in one query on cart.user_id; products, categories and images come from the
+    // second-level cache, or are batch-fetched when not cached yet
+    @EntityGraph(attributePaths = {"items"})
+    @Query("select c from Cart c where c.user.uid = :uid")
+    Optional<Cart> findByUserUid(@Param("uid") String uid);
+
+    // For checkout: products and prices read from the database, never from the second-level cache
+    @EntityGraph(attributePaths = {"items", "items.product", "items.product.category"})
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_CACHE_RETRIEVE_MODE, value = "BYPASS"))
+    @Query("select c from Cart c where c.user.uid = :uid")
+    Optional<Cart> findForCheckoutByUserUid(@Param("uid") String uid);
+
+    @Query("select c.id from Cart c where c.user.uid = :uid")
+    Optional<Long> findIdByUserUid(@Param("uid") String uid);
+
+    @EntityGraph(attributePaths = {"items"})
+    Optional<Cart> findWithItemsById(Long id);
 }
@@ -1,11 +1,46 @@
 package com.ecommerce.ecommerce.repo;
 
+import com.ecommerce.ecommerce.dtos.OrderSummary;
+import com.ecommerce.ecommerce.dtos.VersionStamp;
 import com.ecommerce.ecommerce.model.Order;
-import com.ecommerce.ecommerce.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    List<Order> findByUser(User user);
+    // Orders and their items in one query on orders.user_id; products, categories and images as for carts
+    @EntityGraph(attributePaths = {"items"})
+    @Query("select o from Order o where o.user.uid = :uid")
+    List<Order> findByUserUid(@Param("uid") String uid);
+
+    // Empty unless the order belongs to the user; ownership is checked on orders.user_id, no join to users
+    @EntityGraph(attributePaths = {"items"})
+    @Query("select o from Order o where o.id = :id and o.user.uid = :uid")
+    Optional<Order> findByIdAndUserUid(@Param("id") Long id, @Param("uid") String uid);
+
+    // Order history newest first, a page at a time below the cursor; walks idx_orders_user_id
+    // and counts items without loading them
+    @Query("""
+            select new com.ecommerce.ecommerce.dtos.OrderSummary(
+                o.id, o.createdAt, o.totalAmount, (select count(i) from OrderItem i where i.order = o))
+            from Order o
+            where o.user.uid = :uid and (:cursor is null or o.id < :cursor)
+            order by o.id desc
+            """)
+    List<OrderSummary> findSummariesByUserUid(@Param("uid") String uid,
+                                              @Param("cursor") Long cursor,
+                                              Pageable pageable);
+
+    // Null unless the order belongs to the user
+    @Query("""
+            select new com.ecommerce.ecommerce.dtos.VersionStamp(o.version, o.updatedAt)
+            from Order o
+            where o.id = :id and o.user.uid = :uid
+            """)
+    Optional<VersionStamp> findVersionByIdAndUserUid(@Param("id") Long id, @Param("uid") String uid);
 }
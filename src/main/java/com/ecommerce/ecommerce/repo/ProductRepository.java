@@ -1,7 +1,79 @@
 package com.ecommerce.ecommerce.repo;
 
+import com.ecommerce.ecommerce.dtos.ProductIndexRow;
+import com.ecommerce.ecommerce.dtos.VersionStamp;
 import com.ecommerce.ecommerce.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    List<Product> findAllByOrderByIdAsc(Pageable pageable);
+
+    @Query("select new com.ecommerce.ecommerce.dtos.VersionStamp(p.version, p.updatedAt) from Product p where p.id = :id")
+    Optional<VersionStamp> findVersionById(@Param("id") Long id);
+
+    @Query("select p.id from Product p where p.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Keyset page: rows after the cursor id, every filter is optional
+    @Query("""
+            select p from Product p
+            left join p.category c
+            where (:cursor is null or p.id > :cursor)
+              and (:category is null or c.name = :category)
+              and (:brand is null or p.brand = :brand)
+              and (:minPrice is null or p.price >= :minPrice)
+              and (:maxPrice is null or p.price <= :maxPrice)
+            order by p.id
+            """)
+    List<Product> findPage(@Param("cursor") Long cursor,
+                           @Param("category") String category,
+                           @Param("brand") String brand,
+                           @Param("minPrice") BigDecimal minPrice,
+                           @Param("maxPrice") BigDecimal maxPrice,
+                           Pageable pageable);
+
+    // Indexed fields only, in id order, for (re)building the in-memory catalog indexes
+    @Query("""
+            select new com.ecommerce.ecommerce.dtos.ProductIndexRow(
+                    p.id, p.name, p.brand, p.description, c.name, p.price)
+            from Product p
+            left join p.category c
+            where p.id > :after
+            order by p.id
+            """)
+    List<ProductIndexRow> findIndexRows(@Param("after") long after, Pageable pageable);
+
+    // Takes stock only if enough is left, in a single statement; returns 0 otherwise.
+    default int decrementInventory(Long id, int quantity) {
+        return decrementInventory(id, quantity, Instant.now());
+    }
+
+    // Native, with an empty query space: an HQL bulk update evicts the whole Product region of the
+    // second-level cache on every checkout, so callers evict the products they touched instead.
+    // For the same reason it flushes nothing first; a checkout has no pending product changes.
+    // Bulk updates skip @Version and @UpdateTimestamp, so both are set here to keep ETags honest.
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            update product
+            set inventory = inventory - :quantity,
+                version = coalesce(version, 0) + 1,
+                updated_at = :now
+            where id = :id and inventory >= :quantity
+            """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = ""))
+    int decrementInventory(@Param("id") Long id, @Param("quantity") int quantity, @Param("now") Instant now);
 }
@@ -0,0 +1,129 @@
+package com.ecommerce.ecommerce.repo;
+
+import com.ecommerce.ecommerce.dtos.CategoryResponse;
+import com.ecommerce.ecommerce.dtos.ImageResponse;
+import com.ecommerce.ecommerce.dtos.ProductFilter;
+import com.ecommerce.ecommerce.dtos.ProductResponse;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Catalog reads over R2DBC for the reactive endpoints, mapped straight to {@link ProductResponse} with the
+ * same fields ProductMapper fills in. Plain SQL that runs unchanged on H2 and MySQL: a query for the products
+ * with their categories, then one for all of their images. Owns its connection pool (see ReactiveCatalogConfig).
+ */
+public class ReactiveProductRepository implements DisposableBean {
+
+    private static final String SELECT_PRODUCTS = """
+            select p.id, p.name, p.description, p.price, p.inventory, p.brand, p.version, p.updated_at,
+                   c.id as category_id, c.name as category_name
+            from product p
+            left join category c on c.id = p.category_id
+            """;
+
+    private final ConnectionPool pool;
+    private final DatabaseClient client;
+
+    public ReactiveProductRepository(ConnectionPool pool) {
+        this.pool = pool;
+        this.client = DatabaseClient.create(pool);
+    }
+
+    // In id order; ids without a product are left out
+    public Mono<List<ProductResponse>> findAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        return client.sql(SELECT_PRODUCTS + "where p.id in (:ids) order by p.id")
+                .bind("ids", ids)
+                .map(ReactiveProductRepository::toProduct)
+                .all()
+                .collectList()
+                .flatMap(this::withImages);
+    }
+
+    // Keyset page: up to limit products after the cursor id, every filter is optional
+    public Mono<List<ProductResponse>> findPage(Long cursor, int limit, ProductFilter filter) {
+        StringBuilder sql = new StringBuilder(SELECT_PRODUCTS).append("where 1 = 1");
+        Map<String, Object> params = new LinkedHashMap<>();
+        if (cursor != null) {
+            sql.append(" and p.id > :cursor");
+            params.put("cursor", cursor);
+        }
+        if (filter.getCategory() != null) {
+            sql.append(" and c.name = :category");
+            params.put("category", filter.getCategory());
+        }
+        if (filter.getBrand() != null) {
+            sql.append(" and p.brand = :brand");
+            params.put("brand", filter.getBrand());
+        }
+        if (filter.getMinPrice() != null) {
+            sql.append(" and p.price >= :minPrice");
+            params.put("minPrice", filter.getMinPrice());
+        }
+        if (filter.getMaxPrice() != null) {
+            sql.append(" and p.price <= :maxPrice");
+            params.put("maxPrice", filter.getMaxPrice());
+        }
+        sql.append(" order by p.id limit ").append(limit); // an int, so inlined
+
+        DatabaseClient.GenericExecuteSpec spec = client.sql(sql.toString());
+        for (Map.Entry<String, Object> param : params.entrySet()) {
+            spec = spec.bind(param.getKey(), param.getValue());
+        }
+        return spec.map(ReactiveProductRepository::toProduct)
+                .all()
+                .collectList()
+                .flatMap(this::withImages);
+    }
+
+    @Override
+    public void destroy() {
+        pool.dispose();
+    }
+
+    // One query for the images of all the given products
+    private Mono<List<ProductResponse>> withImages(List<ProductResponse> products) {
+        if (products.isEmpty()) {
+            return Mono.just(products);
+        }
+        Map<Long, ProductResponse> byId = products.stream()
+                .collect(Collectors.toMap(ProductResponse::getId, Function.identity()));
+        return client.sql("select id, product_id, image_url from product_image where product_id in (:ids) order by id")
+                .bind("ids", byId.keySet())
+                .map(row -> Map.entry(row.get("product_id", Long.class), new ImageResponse(
+                        row.get("id", Long.class), null, row.get("image_url", String.class))))
+                .all()
+                .doOnNext(image -> byId.get(image.getKey()).getImages().add(image.getValue()))
+                .then(Mono.just(products));
+    }
+
+    private static ProductResponse toProduct(Readable row) {
+        Long categoryId = row.get("category_id", Long.class);
+        return new ProductResponse(
+                row.get("id", Long.class),
+                row.get("name", String.class),
+                row.get("description", String.class),
+                row.get("price", BigDecimal.class),
+                row.get("inventory", Integer.class),
+                row.get("brand", String.class),
+                categoryId != null ? new CategoryResponse(categoryId, row.get("category_name", String.class)) : null,
+                new ArrayList<>(),
+                row.get("version", Long.class),
+                row.get("updated_at", Instant.class));
+    }
+}
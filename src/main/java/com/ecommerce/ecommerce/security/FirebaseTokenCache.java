@@ -0,0 +1,111 @@
+package com.ecommerce.ecommerce.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseAuthException;
+import com.google.firebase.auth.FirebaseToken;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of verified Firebase ID tokens.
+ * Keys are SHA-256 hashes of the raw token, so the tokens themselves are never kept in memory.
+ * Each entry expires at the token's own "exp" claim.
+ */
+@Component
+public class FirebaseTokenCache {
+
+    private final Cache<String, FirebaseToken> tokens;
+    private final Timer verifyTimer;
+
+    public FirebaseTokenCache(@Value("${security.token-cache.max-size:10000}") long maxSize,
+                              MeterRegistry registry) {
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new ExpiresAtClaim())
+                .recordStats()
+                .build();
+        // Hit ratio as cache_gets_total{cache="firebaseTokens"}, misses timed below.
+        // Same tag keys as the Spring caches, or Prometheus drops one of the two.
+        CaffeineCacheMetrics.monitor(registry, tokens, "firebaseTokens",
+                "cache.manager", "firebaseTokenCache", "name", "firebaseTokens");
+        this.verifyTimer = Timer.builder("security.token.verify")
+                .description("Firebase ID token verification on a cache miss")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    // Returns the cached token, or verifies it with Firebase and caches the result
+    public FirebaseToken verify(String idToken) throws FirebaseAuthException {
+        String key = hash(idToken);
+
+        FirebaseToken cached = tokens.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Timer.Sample sample = Timer.start();
+        FirebaseToken decodedToken;
+        try {
+            decodedToken = FirebaseAuth.getInstance().verifyIdToken(idToken);
+        } finally {
+            sample.stop(verifyTimer);
+        }
+        if (expiresAtMillis(decodedToken) > System.currentTimeMillis()) {
+            tokens.put(key, decodedToken);
+        }
+        return decodedToken;
+    }
+
+    // Drop every cached token of a user (e.g. after their custom claims change)
+    public void revokeUser(String uid) {
+        tokens.asMap().values().removeIf(token -> uid.equals(token.getUid()));
+    }
+
+    private static String hash(String idToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(idToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static long expiresAtMillis(FirebaseToken token) {
+        Object exp = token.getClaims().get("exp");
+        if (exp instanceof Number seconds) {
+            return TimeUnit.SECONDS.toMillis(seconds.longValue());
+        }
+        return 0L;
+    }
+
+    private static class ExpiresAtClaim implements Expiry<String, FirebaseToken> {
+
+        @Override
+        public long expireAfterCreate(String key, FirebaseToken token, long currentTime) {
+            long remainingMillis = expiresAtMillis(token) - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0L));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, FirebaseToken token, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, token, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, FirebaseToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
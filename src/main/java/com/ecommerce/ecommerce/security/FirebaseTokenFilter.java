@@ -1,6 +1,5 @@
 package com.ecommerce.ecommerce.security;
 
-import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseToken;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -17,6 +16,12 @@ import java.util.List;
 @Component
 public class FirebaseTokenFilter extends OncePerRequestFilter {
 
+    private final FirebaseTokenCache tokenCache;
+
+    public FirebaseTokenFilter(FirebaseTokenCache tokenCache) {
+        this.tokenCache = tokenCache;
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
@@ -33,7 +38,7 @@ public class FirebaseTokenFilter extends OncePerRequestFilter {
         String token = header.substring(7);
 
         try {
-            FirebaseToken decodedToken = FirebaseAuth.getInstance().verifyIdToken(token);
+            FirebaseToken decodedToken = tokenCache.verify(token);
             String uid = decodedToken.getUid();
 
             // Create authentication object
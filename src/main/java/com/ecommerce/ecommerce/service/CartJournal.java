@@ -0,0 +1,157 @@
+package com.ecommerce.ecommerce.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of cart changes for {@link WriteBehindCartStore}, one record per line:
+ * "S uid productId quantity" sets a line to an absolute quantity (0 removes it), "C uid" empties a cart.
+ * Records are absolute, so replaying them over a database that already has some of them is harmless.
+ * The log is split into numbered segments; a segment is deleted once a flush has written everything in it.
+ */
+class CartJournal implements Closeable {
+
+    private static final String PREFIX = "cart-journal-";
+    private static final String SUFFIX = ".log";
+
+    interface Replay {
+        void setLine(String userId, long productId, int quantity);
+
+        void clear(String userId);
+    }
+
+    private final Path directory;
+    private final boolean fsync;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long segment;
+    private FileChannel channel;
+
+    CartJournal(Path directory, boolean fsync) {
+        this.directory = directory;
+        this.fsync = fsync;
+        try {
+            Files.createDirectories(directory);
+            List<Long> existing = segments();
+            this.segment = existing.isEmpty() ? 1 : existing.get(existing.size() - 1) + 1;
+            this.channel = open(segment);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open cart journal in " + directory, e);
+        }
+    }
+
+    void setLine(String userId, long productId, int quantity) {
+        append("S\t" + userId + "\t" + productId + "\t" + quantity + "\n");
+    }
+
+    void clear(String userId) {
+        append("C\t" + userId + "\n");
+    }
+
+    // Closes the current segment and starts a new one; returns the number of the closed segment
+    long rotate() {
+        lock.lock();
+        try {
+            channel.close();
+            long sealed = segment++;
+            channel = open(segment);
+            return sealed;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot rotate cart journal", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Deletes every segment up to and including the given one
+    void deleteUpTo(long sealed) {
+        try {
+            for (long number : segments()) {
+                if (number <= sealed) {
+                    Files.deleteIfExists(path(number));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete cart journal segments", e);
+        }
+    }
+
+    // Replays all segments in order. A record cut short by a crash has no trailing newline and is skipped.
+    void replay(Replay target) {
+        try {
+            for (long number : segments()) {
+                String content = Files.readString(path(number), StandardCharsets.UTF_8);
+                int end = content.lastIndexOf('\n');
+                if (end < 0) {
+                    continue;
+                }
+                for (String record : content.substring(0, end).split("\n")) {
+                    String[] fields = record.split("\t");
+                    if (fields.length == 4 && fields[0].equals("S")) {
+                        target.setLine(fields[1], Long.parseLong(fields[2]), Integer.parseInt(fields[3]));
+                    } else if (fields.length == 2 && fields[0].equals("C")) {
+                        target.clear(fields[1]);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read cart journal", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            channel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void append(String record) {
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(record);
+        lock.lock();
+        try {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write cart journal", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private FileChannel open(long number) throws IOException {
+        return FileChannel.open(path(number),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private Path path(long number) {
+        return directory.resolve(PREFIX + number + SUFFIX);
+    }
+
+    // Segment numbers on disk, oldest first
+    private List<Long> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.dtos.CartResponse;
+
+// Where carts live; chosen with the cart.store property (jpa or write-behind)
+public interface CartStore {
+
+    CartResponse getCart(String userId);
+
+    CartResponse addItem(String userId, Long productId, int quantity);
+
+    CartResponse removeItem(String userId, Long cartItemId);
+
+    // Called first thing inside the checkout transaction, so the cart tables hold the latest state
+    default void prepareCheckout(String userId) {
+    }
+}
@@ -0,0 +1,116 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.config.CacheConfig;
+import com.ecommerce.ecommerce.dtos.ProductResponse;
+import com.ecommerce.ecommerce.dtos.VersionStamp;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Public catalog responses serialized once and kept as UTF-8 JSON bytes, plus a gzipped copy for large ones,
+ * so a cache hit skips mapping and Jackson and is copied straight to the response.
+ * Entries live in {@link CacheConfig#PRODUCT_JSON} and {@link CacheConfig#PRODUCT_PAGE_JSON}, evicted by the
+ * same writes that evict the object caches; with caching off every call serializes afresh.
+ */
+@Component
+public class CatalogJsonCache {
+
+    // Ready-to-send body with its validators; gzipped is null when not worth it
+    public record CachedJson(byte[] body, byte[] gzipped, String eTag, long lastModified) {
+    }
+
+    private final CacheManager cacheManager;
+    private final ObjectMapper objectMapper;
+    private final int gzipMinSize;
+
+    public CatalogJsonCache(CacheManager cacheManager,
+                            ObjectMapper objectMapper,
+                            @Value("${catalog.cache.json.gzip-min-size:1024}") int gzipMinSize) {
+        this.cacheManager = cacheManager;
+        this.objectMapper = objectMapper;
+        this.gzipMinSize = gzipMinSize;
+    }
+
+    // Null unless cached; lets a miss be answered with a 304 before anything is loaded
+    public CachedJson cachedProduct(Long id) {
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCT_JSON);
+        return cache != null ? cache.get(id, CachedJson.class) : null;
+    }
+
+    // ETag from the version of the body itself, so it always describes the bytes sent
+    public CachedJson product(Long id, Supplier<ProductResponse> loader) {
+        return get(CacheConfig.PRODUCT_JSON, id, () -> {
+            ProductResponse product = loader.get();
+            VersionStamp stamp = new VersionStamp(product.getVersion(), product.getUpdatedAt());
+            return withGzip(toJson(product), stamp.eTag("product", id), stamp.lastModified());
+        });
+    }
+
+    // Listings: the ETag hashes the bytes, Last-Modified is the latest write among the products
+    public <T> CachedJson page(Object key, Supplier<T> loader, Function<T, List<ProductResponse>> items) {
+        return get(CacheConfig.PRODUCT_PAGE_JSON, key, () -> {
+            T page = loader.get();
+            long lastModified = items.apply(page).stream()
+                    .map(ProductResponse::getUpdatedAt)
+                    .filter(Objects::nonNull)
+                    .mapToLong(Instant::toEpochMilli)
+                    .max().orElse(-1);
+            byte[] body = toJson(page);
+            return withGzip(body, "\"products-" + DigestUtils.md5DigestAsHex(body) + "\"", lastModified);
+        });
+    }
+
+    private CachedJson get(String cacheName, Object key, Supplier<CachedJson> loader) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return loader.get();
+        }
+        try {
+            return cache.get(key, loader::get);
+        } catch (Cache.ValueRetrievalException e) {
+            // Keep e.g. "Product not found" as thrown by the service
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private CachedJson withGzip(byte[] body, String eTag, long lastModified) {
+        byte[] gzipped = gzipMinSize >= 0 && body.length >= gzipMinSize ? gzip(body) : null;
+        if (gzipped != null && gzipped.length >= body.length) {
+            gzipped = null; // already dense, not worth the Content-Encoding
+        }
+        return new CachedJson(body, gzipped, eTag, lastModified);
+    }
+
+    private byte[] toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize catalog response", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // in-memory stream, does not happen
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,68 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.model.Category;
+import com.ecommerce.ecommerce.repo.CategoryRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns category names: each name is looked up or created in the database once, after which
+ * resolving it costs a map lookup. Names are unique in the database (uk_category_name), so when two
+ * threads create the same new category the loser simply reads the winner's row. The lookup runs
+ * outside the map rather than in computeIfAbsent, which would hold the map's bin lock (pinning a virtual
+ * thread) through the transaction; a name resolved by two threads at once is just looked up twice.
+ * Categories are never renamed or deleted by the application, so cached ids do not go stale.
+ */
+@Component
+public class CategoryResolver {
+
+    private final Map<String, Long> ids = new ConcurrentHashMap<>();
+    private final CategoryRepository categoryRepository;
+    private final TransactionTemplate newTransaction;
+
+    public CategoryResolver(CategoryRepository categoryRepository, PlatformTransactionManager transactionManager) {
+        this.categoryRepository = categoryRepository;
+        // Committed on its own, so a caller that rolls back cannot leave an unknown id in the map
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Detached category with the given name, created if needed; usable as a product's category in any session
+    public Category resolve(String name) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("category is required"); // as in the import; a 400 for admins
+        }
+        Category category = new Category();
+        Long id = ids.get(name);
+        if (id == null) {
+            id = findOrCreate(name);
+            ids.putIfAbsent(name, id); // a concurrent lookup of the name found the same row
+        }
+        category.setId(id);
+        category.setName(name);
+        return category;
+    }
+
+    private Long findOrCreate(String name) {
+        try {
+            return newTransaction.execute(status -> categoryRepository.findByName(name)
+                    .orElseGet(() -> {
+                        Category category = new Category();
+                        category.setName(name);
+                        return categoryRepository.saveAndFlush(category);
+                    })
+                    .getId());
+        } catch (DataIntegrityViolationException lostRace) {
+            // Another instance inserted the same name first
+            return newTransaction.execute(status -> categoryRepository.findByName(name)
+                    .orElseThrow(() -> lostRace)
+                    .getId());
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.dtos.CartResponse;
+import com.ecommerce.ecommerce.mapper.CartMapper;
+import com.ecommerce.ecommerce.model.Cart;
+import com.ecommerce.ecommerce.model.CartItem;
+import com.ecommerce.ecommerce.model.User;
+import com.ecommerce.ecommerce.repo.CartItemRepository;
+import com.ecommerce.ecommerce.repo.CartRepository;
+import com.ecommerce.ecommerce.repo.ProductRepository;
+import com.ecommerce.ecommerce.repo.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+// Default cart store: every change is its own JPA transaction on the cart tables
+@Component
+@ConditionalOnProperty(name = "cart.store", havingValue = "jpa", matchIfMissing = true)
+public class JpaCartStore implements CartStore {
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final UserRepository userRepository;
+    private final ProductRepository productRepository;
+    private final CartMapper cartMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    public JpaCartStore(CartRepository cartRepository,
+            CartItemRepository cartItemRepository,
+            UserRepository userRepository,
+            ProductRepository productRepository,
+            CartMapper cartMapper,
+            JdbcTemplate jdbcTemplate,
+            EntityManager entityManager) {
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.userRepository = userRepository;
+        this.productRepository = productRepository;
+        this.cartMapper = cartMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @Transactional
+    public CartResponse addItem(String userId, Long productId, int quantity) {
+        // 1. Get or create user's cart; the user is only looked up when there is no cart yet
+        Long cartId = cartRepository.findIdByUserUid(userId)
+                .orElseGet(() -> createCart(userId).getId());
+
+        // 2. Add to the existing line for this product, if any, in one statement
+        // (which also flushes a cart created above)
+        if (cartItemRepository.incrementQuantity(cartId, productId, quantity) == 0) {
+            // 3. Otherwise create the line
+            insertLine(cartId, productId, quantity);
+        }
+
+        // 4. Read the cart back in one fetch-joined query and convert to response
+        Cart cart = cartRepository.findWithItemsById(cartId)
+                .orElseThrow(() -> new RuntimeException("Cart not found"));
+        return cartMapper.toResponse(cart);
+    }
+
+    @Override
+    @Transactional
+    public CartResponse removeItem(String userId, Long cartItemId) {
+        // 1. Get user's cart
+        Cart cart = cartRepository.findByUserUid(userId)
+                .orElseThrow(() -> notFound(userId, "Cart not found"));
+
+        // 2. Find and remove item
+        CartItem itemToRemove = cart.getItems().stream()
+                .filter(item -> item.getId().equals(cartItemId))
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("Cart item not found"));
+
+        cart.getItems().remove(itemToRemove);
+        Cart savedCart = cartRepository.save(cart);
+
+        // 3. Convert to response
+        return cartMapper.toResponse(savedCart);
+    }
+
+    @Override
+    @Transactional
+    public CartResponse getCart(String userId) {
+        Cart cart = cartRepository.findByUserUid(userId)
+                .orElseGet(() -> createCart(userId));
+
+        return cartMapper.toResponse(cart);
+    }
+
+    // Plain JDBC, so a failed insert only fails its statement: a Hibernate flush error would mark the
+    // whole transaction rollback-only. The product's existence is checked only if the insert fails.
+    private void insertLine(Long cartId, Long productId, int quantity) {
+        try {
+            jdbcTemplate.update("insert into cart_item (id, cart_id, product_id, quantity) values (?, ?, ?, ?)",
+                    nextCartItemId(), cartId, productId, quantity);
+        } catch (DuplicateKeyException lostRace) {
+            // A concurrent add of the same product created the line first (uk_cart_item_cart_product)
+            if (cartItemRepository.incrementQuantity(cartId, productId, quantity) == 0) {
+                throw lostRace;
+            }
+        } catch (DataIntegrityViolationException e) {
+            if (!productRepository.existsById(productId)) {
+                throw new RuntimeException("Product not found");
+            }
+            throw e;
+        }
+    }
+
+    // Next pooled id of cart_item_seq, as persist would assign it
+    private Long nextCartItemId() {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        IdentifierGenerator generator = (IdentifierGenerator) session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(CartItem.class).getGenerator();
+        return (Long) generator.generate(session, null);
+    }
+
+    private Cart createCart(String userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        Cart newCart = new Cart();
+        newCart.setUser(user);
+        return cartRepository.save(newCart);
+    }
+
+    // Carts are looked up by UID alone, so tell a missing user from a missing cart only once nothing was found
+    private RuntimeException notFound(String userId, String message) {
+        return new RuntimeException(userRepository.existsById(userId) ? message : "User not found");
+    }
+}
@@ -1,8 +1,11 @@
 package com.ecommerce.ecommerce.service;
 
-import com.ecommerce.ecommerce.dtos.OrderItemResponse;
+import com.ecommerce.ecommerce.config.CacheConfig;
+import com.ecommerce.ecommerce.dtos.OrderHistoryPage;
 import com.ecommerce.ecommerce.dtos.OrderResponse;
-import com.ecommerce.ecommerce.dtos.ProductResponse;
+import com.ecommerce.ecommerce.dtos.OrderSummary;
+import com.ecommerce.ecommerce.dtos.VersionStamp;
+import com.ecommerce.ecommerce.mapper.OrderMapper;
 import com.ecommerce.ecommerce.model.Cart;
 import com.ecommerce.ecommerce.model.CartItem;
 import com.ecommerce.ecommerce.model.Order;
@@ -11,54 +14,95 @@ import com.ecommerce.ecommerce.model.Product;
 import com.ecommerce.ecommerce.model.User;
 import com.ecommerce.ecommerce.repo.CartRepository;
 import com.ecommerce.ecommerce.repo.OrderRepository;
+import com.ecommerce.ecommerce.repo.ProductRepository;
 import com.ecommerce.ecommerce.repo.UserRepository;
-import org.modelmapper.ModelMapper;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "app.service", histogram = true)
 public class OrderService {
 
+    public static final int MAX_HISTORY_PAGE_SIZE = 100;
+
     private final OrderRepository orderRepository;
     private final CartRepository cartRepository;
     private final UserRepository userRepository;
-    private final ModelMapper modelMapper;
+    private final ProductRepository productRepository;
+    private final OrderMapper orderMapper;
+    private final CacheManager cacheManager;
+    private final CartStore cartStore;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ObjectProvider<ReplicaLagCacheEvictor> replicaLagCacheEvictor;
 
     public OrderService(OrderRepository orderRepository,
             CartRepository cartRepository,
             UserRepository userRepository,
-            ModelMapper modelMapper) {
+            ProductRepository productRepository,
+            OrderMapper orderMapper,
+            CacheManager cacheManager,
+            CartStore cartStore,
+            EntityManagerFactory entityManagerFactory,
+            ObjectProvider<ReplicaLagCacheEvictor> replicaLagCacheEvictor) {
         this.orderRepository = orderRepository;
         this.cartRepository = cartRepository;
         this.userRepository = userRepository;
-        this.modelMapper = modelMapper;
+        this.productRepository = productRepository;
+        this.orderMapper = orderMapper;
+        this.cacheManager = cacheManager;
+        this.cartStore = cartStore;
+        this.entityManagerFactory = entityManagerFactory;
+        this.replicaLagCacheEvictor = replicaLagCacheEvictor;
     }
 
     @Transactional
     public OrderResponse checkout(String userId) {
-        // 1. Get user
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        // 1. Get user's cart by UID (a write-behind store writes it out and holds it until this transaction ends)
+        cartStore.prepareCheckout(userId);
+        Cart cart = cartRepository.findForCheckoutByUserUid(userId)
+                .orElseThrow(() -> notFound(userId, "Cart is empty"));
 
-        // 2. Get user's cart
-        Cart cart = cartRepository.findByUser(user)
-                .orElseThrow(() -> new RuntimeException("Cart is empty"));
+        // 2. The cart's foreign key vouches for the user, so a reference is enough for the order
+        User user = userRepository.getReferenceById(userId);
 
         // 3. Check if cart has items
         if (cart.getItems() == null || cart.getItems().isEmpty()) {
             throw new RuntimeException("Cannot checkout with an empty cart");
         }
 
-        // 4. Create order
+        // 4. Reserve stock. Rows are locked in product id order so concurrent checkouts
+        // cannot deadlock; any short line throws and rolls back the whole checkout.
+        List<CartItem> lines = cart.getItems().stream()
+                .sorted(Comparator.comparing(item -> item.getProduct().getId()))
+                .toList();
+        for (CartItem line : lines) {
+            int reserved = productRepository.decrementInventory(line.getProduct().getId(), line.getQuantity());
+            if (reserved == 0) {
+                throw new RuntimeException("Cannot checkout: insufficient stock for product "
+                        + line.getProduct().getName());
+            }
+        }
+        evictProductsAfterCommit(lines.stream().map(line -> line.getProduct().getId()).toList());
+
+        // 5. Create order
         Order order = new Order();
         order.setUser(user);
         order.setItems(new java.util.ArrayList<>());
 
-        // 5. Calculate total and create order items
+        // 6. Calculate total and create order items
         BigDecimal totalAmount = BigDecimal.ZERO;
 
         for (CartItem cartItem : cart.getItems()) {
@@ -80,54 +124,86 @@ public class OrderService {
 
         order.setTotalAmount(totalAmount);
 
-        // 6. Save order
+        // 7. Save order
         Order savedOrder = orderRepository.save(order);
 
-        // 7. Clear cart
+        // 8. Clear cart
         cart.getItems().clear();
         cartRepository.save(cart);
 
-        // 8. Convert to response
-        return mapToOrderResponse(savedOrder);
+        // 9. Convert to response
+        return orderMapper.toResponse(savedOrder);
     }
 
+    @Transactional(readOnly = true)
     public List<OrderResponse> getUserOrders(String userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        List<Order> orders = orderRepository.findByUser(user);
+        List<Order> orders = orderRepository.findByUserUid(userId);
+        if (orders.isEmpty() && !userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
         return orders.stream()
-                .map(this::mapToOrderResponse)
+                .map(orderMapper::toResponse)
                 .collect(Collectors.toList());
     }
 
+    // Version and last write of one of the user's orders without loading it, for conditional GETs
+    @Transactional(readOnly = true)
+    public VersionStamp getOrderVersion(String userId, Long orderId) {
+        return orderRepository.findVersionByIdAndUserUid(orderId, userId)
+                .orElseThrow(() -> new RuntimeException("Order not found"));
+    }
+
+    // Summaries only, newest first; an unknown user simply has no orders
+    @Transactional(readOnly = true)
+    public OrderHistoryPage getOrderHistory(String userId, Long cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_HISTORY_PAGE_SIZE));
+
+        // Fetch one extra row to know whether another page follows
+        List<OrderSummary> summaries = orderRepository.findSummariesByUserUid(userId, cursor,
+                PageRequest.of(0, pageSize + 1));
+
+        boolean hasMore = summaries.size() > pageSize;
+        List<OrderSummary> page = hasMore ? summaries.subList(0, pageSize) : summaries;
+        Long nextCursor = hasMore ? page.get(page.size() - 1).getId() : null;
+
+        return new OrderHistoryPage(page, nextCursor);
+    }
+
+    @Transactional(readOnly = true)
     public OrderResponse getOrderById(String userId, Long orderId) {
-        Order order = orderRepository.findById(orderId)
+        // Another user's order is "not found" as well
+        Order order = orderRepository.findByIdAndUserUid(orderId, userId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
-        // Verify order belongs to user
-        if (order.getUser() == null || !order.getUser().getUid().equals(userId)) {
-            throw new RuntimeException("Order not found");
-        }
-        return mapToOrderResponse(order);
+        return orderMapper.toResponse(order);
     }
 
-    private OrderResponse mapToOrderResponse(Order order) {
-        OrderResponse response = new OrderResponse();
-        response.setId(order.getId());
-        response.setTotalAmount(order.getTotalAmount());
-
-        List<OrderItemResponse> itemResponses = order.getItems().stream()
-                .map(item -> {
-                    OrderItemResponse itemResponse = new OrderItemResponse();
-                    itemResponse.setId(item.getId());
-                    itemResponse.setQuantity(item.getQuantity());
-                    itemResponse.setPrice(item.getPrice());
-                    itemResponse.setProduct(modelMapper.map(item.getProduct(), ProductResponse.class));
-                    return itemResponse;
-                })
-                .collect(Collectors.toList());
+    // Only checked after a UID lookup came back empty
+    private RuntimeException notFound(String userId, String message) {
+        return new RuntimeException(userRepository.existsById(userId) ? message : "User not found");
+    }
 
-        response.setItems(itemResponses);
-        return response;
+    // Cached products and pages would keep showing the old inventory; the stock update leaves the
+    // second-level cache alone, so only the products sold are evicted from it as well. With a
+    // read replica they are evicted again once it has caught up (see ReplicaLagCacheEvictor).
+    private void evictProductsAfterCommit(List<Long> productIds) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                for (String name : List.of(CacheConfig.PRODUCTS, CacheConfig.PRODUCT_JSON)) {
+                    Cache products = cacheManager.getCache(name);
+                    if (products != null) {
+                        productIds.forEach(products::evict);
+                    }
+                }
+                for (String name : List.of(CacheConfig.PRODUCT_PAGES, CacheConfig.PRODUCT_PAGE_JSON)) {
+                    Cache pages = cacheManager.getCache(name);
+                    if (pages != null) {
+                        pages.clear();
+                    }
+                }
+                productIds.forEach(id -> entityManagerFactory.getCache().evict(Product.class, id));
+                replicaLagCacheEvictor.ifAvailable(evictor -> evictor.evictLater(productIds));
+            }
+        });
     }
 }
@@ -0,0 +1,18 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.dtos.ProductIndexRow;
+import com.ecommerce.ecommerce.model.Product;
+
+// Published by every write to a product's indexed fields; product is null when it was deleted
+public record ProductChangedEvent(Long productId, ProductIndexRow product) {
+
+    public static ProductChangedEvent saved(Product product) {
+        String category = product.getCategory() != null ? product.getCategory().getName() : null;
+        return new ProductChangedEvent(product.getId(), new ProductIndexRow(product.getId(),
+                product.getName(), product.getBrand(), product.getDescription(), category, product.getPrice()));
+    }
+
+    public static ProductChangedEvent deleted(Long productId) {
+        return new ProductChangedEvent(productId, null);
+    }
+}
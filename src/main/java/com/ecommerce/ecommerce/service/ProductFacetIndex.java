@@ -0,0 +1,387 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.dtos.ProductFacets;
+import com.ecommerce.ecommerce.dtos.ProductFilter;
+import com.ecommerce.ecommerce.dtos.ProductIndexRow;
+import com.ecommerce.ecommerce.repo.ProductRepository;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntConsumer;
+import org.roaringbitmap.RoaringBitmap;
+import org.roaringbitmap.RoaringBitmapWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Facet counts (products per category, brand and price bucket) for any ProductFilter, from
+ * compressed bitmaps of product ids held in memory, one per category, brand and price bucket.
+ * The filter is an AND of a few bitmaps, and no query reaches the database.
+ * Product ids index plain arrays here, which suits the dense ids handed out by product_seq.
+ * Filters match like ProductRepository.findPage: exact category and brand names, inclusive price bounds.
+ * Rebuilt at startup and kept current from ProductChangedEvent, like ProductSearchIndex.
+ */
+@Component
+public class ProductFacetIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductFacetIndex.class);
+
+    public static final int MAX_VALUES = 100;
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private static final int NO_VALUE = -1;
+    private static final long NO_PRICE = Long.MIN_VALUE;
+
+    private final ProductRepository productRepository;
+
+    // Lower bound of each price bucket in cents, ascending, starting at 0
+    private final long[] bucketBounds;
+
+    private volatile Facets facets;
+
+    // Changes seen while a rebuild is running, replayed onto the new bitmaps; guarded by changeLock
+    private List<ProductChangedEvent> missed;
+
+    // Not synchronized: applying a change can wait on the index's write lock, and a virtual thread
+    // waiting inside a monitor pins its carrier thread (Java 21)
+    private final ReentrantLock changeLock = new ReentrantLock();
+
+    public ProductFacetIndex(ProductRepository productRepository,
+                             @Value("${catalog.facets.price-buckets:10,25,50,100,250,500,1000}") BigDecimal[] priceBuckets) {
+        this.productRepository = productRepository;
+        this.bucketBounds = new long[priceBuckets.length + 1];
+        for (int i = 0; i < priceBuckets.length; i++) {
+            bucketBounds[i + 1] = cents(priceBuckets[i], RoundingMode.CEILING);
+        }
+        Arrays.sort(bucketBounds);
+        this.facets = new Facets();
+    }
+
+    // Runs before the application reports itself ready for traffic
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        changeLock.lock();
+        try {
+            missed = new ArrayList<>();
+        } finally {
+            changeLock.unlock();
+        }
+        Facets fresh = new Facets();
+        long after = 0;
+        List<ProductIndexRow> rows;
+        do {
+            rows = productRepository.findIndexRows(after, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            for (ProductIndexRow row : rows) {
+                fresh.put(row);
+                after = row.getId();
+            }
+        } while (rows.size() == REBUILD_BATCH_SIZE);
+        fresh.compact();
+
+        changeLock.lock();
+        try {
+            missed.forEach(fresh::apply);
+            missed = null;
+            facets = fresh;
+        } finally {
+            changeLock.unlock();
+        }
+        log.info("Built facets for {} products", fresh.all.getLongCardinality());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        changeLock.lock();
+        try {
+            facets.apply(event);
+            if (missed != null) {
+                missed.add(event);
+            }
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    public ProductFacets count(ProductFilter filter) {
+        return facets.count(filter);
+    }
+
+    private static long cents(BigDecimal price, RoundingMode rounding) {
+        return price.movePointRight(2).setScale(0, rounding).longValueExact();
+    }
+
+    private final class Facets {
+
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        final RoaringBitmap all = new RoaringBitmap();
+        final Dimension categories = new Dimension();
+        final Dimension brands = new Dimension();
+        final RoaringBitmap[] byBucket = new RoaringBitmap[bucketBounds.length];
+
+        // Price in cents and price bucket by product id, NO_PRICE and NO_VALUE when unknown
+        long[] priceOf = new long[0];
+        int[] bucketOf = new int[0];
+
+        Facets() {
+            for (int i = 0; i < byBucket.length; i++) {
+                byBucket[i] = new RoaringBitmap();
+            }
+        }
+
+        void apply(ProductChangedEvent event) {
+            if (event.product() == null) {
+                lock.writeLock().lock();
+                try {
+                    remove(Math.toIntExact(event.productId()));
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } else {
+                put(event.product());
+            }
+        }
+
+        void put(ProductIndexRow row) {
+            int id = Math.toIntExact(row.getId());
+            long price = row.getPrice() != null ? cents(row.getPrice(), RoundingMode.HALF_UP) : NO_PRICE;
+
+            lock.writeLock().lock();
+            try {
+                remove(id);
+                if (id >= priceOf.length) {
+                    int length = Math.max(id + 1, priceOf.length * 2);
+                    priceOf = grow(priceOf, length);
+                    bucketOf = grow(bucketOf, length);
+                    categories.grow(length);
+                    brands.grow(length);
+                }
+                all.add(id);
+                categories.add(id, row.getCategory());
+                brands.add(id, row.getBrand());
+                priceOf[id] = price;
+                if (price != NO_PRICE) {
+                    bucketOf[id] = bucket(price);
+                    byBucket[bucketOf[id]].add(id);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void remove(int id) {
+            if (!all.checkedRemove(id)) {
+                return;
+            }
+            categories.remove(id);
+            brands.remove(id);
+            long price = priceOf[id];
+            if (price != NO_PRICE) {
+                byBucket[bucketOf[id]].remove(id);
+                bucketOf[id] = NO_VALUE;
+            }
+        }
+
+        // Run-length encodes dense stretches of ids once the initial load is done
+        void compact() {
+            all.runOptimize();
+            categories.bitmaps.forEach(RoaringBitmap::runOptimize);
+            brands.bitmaps.forEach(RoaringBitmap::runOptimize);
+            Arrays.stream(byBucket).forEach(RoaringBitmap::runOptimize);
+        }
+
+        ProductFacets count(ProductFilter filter) {
+            lock.readLock().lock();
+            try {
+                // null stands for "no restriction"
+                RoaringBitmap category = categories.filter(filter.getCategory());
+                RoaringBitmap brand = brands.filter(filter.getBrand());
+                RoaringBitmap price = priceFilter(filter.getMinPrice(), filter.getMaxPrice());
+
+                RoaringBitmap brandAndPrice = and(brand, price);
+                RoaringBitmap everything = and(category, brandAndPrice);
+                long total = everything == null ? all.getLongCardinality() : everything.getLongCardinality();
+
+                long[] bucketCounts = new long[byBucket.length];
+                RoaringBitmap categoryAndBrand = and(category, brand);
+                if (categoryAndBrand == null) {
+                    for (int i = 0; i < byBucket.length; i++) {
+                        bucketCounts[i] = byBucket[i].getLongCardinality();
+                    }
+                } else {
+                    int[] of = bucketOf;
+                    categoryAndBrand.forEach((IntConsumer) id -> {
+                        if (of[id] != NO_VALUE) {
+                            bucketCounts[of[id]]++;
+                        }
+                    });
+                }
+                List<ProductFacets.PriceRangeCount> buckets = new ArrayList<>(byBucket.length);
+                for (int i = 0; i < byBucket.length; i++) {
+                    BigDecimal min = BigDecimal.valueOf(bucketBounds[i], 2);
+                    BigDecimal max = i + 1 < bucketBounds.length ? BigDecimal.valueOf(bucketBounds[i + 1], 2) : null;
+                    buckets.add(new ProductFacets.PriceRangeCount(min, max, bucketCounts[i]));
+                }
+
+                return new ProductFacets(total,
+                        categories.counts(brandAndPrice),
+                        brands.counts(and(category, price)),
+                        buckets);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        // Whole buckets inside the range are used as they are; only the products of the two edge buckets
+        // have their price checked one by one
+        private RoaringBitmap priceFilter(BigDecimal minPrice, BigDecimal maxPrice) {
+            if (minPrice == null && maxPrice == null) {
+                return null;
+            }
+            long low = minPrice != null ? cents(minPrice, RoundingMode.CEILING) : Long.MIN_VALUE;
+            long high = maxPrice != null ? cents(maxPrice, RoundingMode.FLOOR) : Long.MAX_VALUE;
+            if (low > high) {
+                return new RoaringBitmap();
+            }
+            List<RoaringBitmap> parts = new ArrayList<>();
+            for (int i = 0; i < byBucket.length; i++) {
+                long bucketLow = i == 0 ? Long.MIN_VALUE : bucketBounds[i];
+                long bucketHigh = i + 1 < bucketBounds.length ? bucketBounds[i + 1] - 1 : Long.MAX_VALUE;
+                if (bucketHigh < low || bucketLow > high) {
+                    continue;
+                }
+                if (low <= bucketLow && bucketHigh <= high) {
+                    parts.add(byBucket[i]);
+                } else {
+                    RoaringBitmapWriter<RoaringBitmap> inRange = RoaringBitmapWriter.writer().get();
+                    long[] prices = priceOf;
+                    byBucket[i].forEach((IntConsumer) id -> {
+                        if (prices[id] >= low && prices[id] <= high) {
+                            inRange.add(id);
+                        }
+                    });
+                    parts.add(inRange.get());
+                }
+            }
+            return parts.isEmpty() ? new RoaringBitmap() : FastAggregation.or(parts.iterator());
+        }
+
+        private static RoaringBitmap and(RoaringBitmap a, RoaringBitmap b) {
+            if (a == null) {
+                return b;
+            }
+            if (b == null) {
+                return a;
+            }
+            return RoaringBitmap.and(a, b);
+        }
+    }
+
+    // Prices below the first bound (negative) count in the first bucket
+    private int bucket(long price) {
+        int i = Arrays.binarySearch(bucketBounds, price);
+        return i >= 0 ? i : Math.max(0, -i - 2);
+    }
+
+    /**
+     * The products having each value of one field (category or brand), as a bitmap per value, and the
+     * value of each product as an ordinal indexed by product id. Filters use the bitmaps; counts under a
+     * filter walk the filtered ids once and look their ordinal up, which is far cheaper than intersecting
+     * the filter with every value's bitmap when there are many values.
+     */
+    private static final class Dimension {
+
+        final Map<String, Integer> ordinals = new HashMap<>();
+        final List<String> values = new ArrayList<>();
+        final List<RoaringBitmap> bitmaps = new ArrayList<>();
+        int[] ordinalOf = new int[0]; // NO_VALUE when the product has none
+
+        void grow(int length) {
+            ordinalOf = ProductFacetIndex.grow(ordinalOf, length);
+        }
+
+        void add(int id, String value) {
+            if (value == null) {
+                return;
+            }
+            int ordinal = ordinals.computeIfAbsent(value, v -> {
+                values.add(v);
+                bitmaps.add(new RoaringBitmap());
+                return values.size() - 1;
+            });
+            bitmaps.get(ordinal).add(id);
+            ordinalOf[id] = ordinal;
+        }
+
+        void remove(int id) {
+            int ordinal = ordinalOf[id];
+            if (ordinal != NO_VALUE) {
+                bitmaps.get(ordinal).remove(id);
+                ordinalOf[id] = NO_VALUE;
+            }
+        }
+
+        RoaringBitmap filter(String value) {
+            if (value == null) {
+                return null;
+            }
+            Integer ordinal = ordinals.get(value);
+            return ordinal != null ? bitmaps.get(ordinal) : new RoaringBitmap();
+        }
+
+        // Values with at least one product within the bitmap (null for all products), most products first
+        List<ProductFacets.ValueCount> counts(RoaringBitmap within) {
+            long[] counts = new long[values.size()];
+            if (within == null) {
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] = bitmaps.get(i).getLongCardinality();
+                }
+            } else {
+                int[] of = ordinalOf;
+                within.forEach((IntConsumer) id -> {
+                    if (of[id] != NO_VALUE) {
+                        counts[of[id]]++;
+                    }
+                });
+            }
+            List<ProductFacets.ValueCount> result = new ArrayList<>();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    result.add(new ProductFacets.ValueCount(values.get(i), counts[i]));
+                }
+            }
+            result.sort(Comparator.comparingLong(ProductFacets.ValueCount::getCount).reversed()
+                    .thenComparing(ProductFacets.ValueCount::getValue));
+            return result.size() > MAX_VALUES ? new ArrayList<>(result.subList(0, MAX_VALUES)) : result;
+        }
+    }
+
+    private static int[] grow(int[] array, int length) {
+        int from = array.length;
+        int[] grown = Arrays.copyOf(array, length);
+        Arrays.fill(grown, from, length, NO_VALUE);
+        return grown;
+    }
+
+    private static long[] grow(long[] array, int length) {
+        int from = array.length;
+        long[] grown = Arrays.copyOf(array, length);
+        Arrays.fill(grown, from, length, NO_PRICE);
+        return grown;
+    }
+}
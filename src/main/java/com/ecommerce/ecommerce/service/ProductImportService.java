@@ -0,0 +1,235 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.config.CacheConfig;
+import com.ecommerce.ecommerce.dtos.ImportReport;
+import com.ecommerce.ecommerce.dtos.ProductRequest;
+import com.ecommerce.ecommerce.mapper.ProductMapper;
+import com.ecommerce.ecommerce.model.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Bulk product import from CSV (with a header row) or NDJSON, one product per line.
+ * The input is read as a stream and written in chunks of catalog.import.chunk-size rows, each in its own
+ * transaction, so memory use does not depend on the size of the file. Bad rows are reported by line number
+ * and skipped; the rest of the file is still imported.
+ */
+@Service
+public class ProductImportService {
+
+    public static final MediaType TEXT_CSV = MediaType.valueOf("text/csv");
+
+    private static final String[] CSV_COLUMNS = { "name", "brand", "price", "inventory", "description", "category" };
+
+    private final EntityManager entityManager;
+    private final CategoryResolver categoryResolver;
+    private final ProductMapper productMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher events;
+    private final ObjectReader jsonReader;
+    private final int chunkSize;
+    private final int maxErrors;
+
+    public ProductImportService(EntityManager entityManager,
+                                CategoryResolver categoryResolver,
+                                ProductMapper productMapper,
+                                PlatformTransactionManager transactionManager,
+                                ApplicationEventPublisher events,
+                                ObjectMapper objectMapper,
+                                @Value("${catalog.import.chunk-size:1000}") int chunkSize,
+                                @Value("${catalog.import.max-errors:100}") int maxErrors) {
+        this.entityManager = entityManager;
+        this.categoryResolver = categoryResolver;
+        this.productMapper = productMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.events = events;
+        this.jsonReader = objectMapper.readerFor(ProductRequest.class);
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+    }
+
+    @CacheEvict(cacheNames = { CacheConfig.PRODUCT_PAGES, CacheConfig.PRODUCT_PAGE_JSON }, allEntries = true)
+    public ImportReport importProducts(InputStream input, MediaType contentType) throws IOException {
+        boolean csv = TEXT_CSV.isCompatibleWith(contentType);
+        ImportReport report = new ImportReport();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            int[] columns = csv ? csvColumns(reader.readLine()) : null;
+            long lineNumber = csv ? 1 : 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                report.setRowsRead(report.getRowsRead() + 1);
+                try {
+                    ProductRequest request = csv ? fromCsv(splitCsv(line), columns) : jsonReader.readValue(line);
+                    validate(request);
+                    chunk.add(new Row(lineNumber, request));
+                } catch (IllegalArgumentException | JsonProcessingException e) {
+                    fail(report, lineNumber, e.getMessage());
+                }
+                if (chunk.size() == chunkSize) {
+                    writeChunk(chunk, report);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, report);
+        }
+        return report;
+    }
+
+    private void writeChunk(List<Row> chunk, ImportReport report) {
+        // New categories commit in their own transaction; creating them before the chunk starts means
+        // the chunk never waits for a second connection and a failed chunk cannot undo them
+        for (Row row : chunk) {
+            categoryResolver.resolve(row.request().getCategory());
+        }
+        try {
+            // Inserts are sent in JDBC batches (hibernate.jdbc.batch_size) when the transaction commits
+            transactionTemplate.executeWithoutResult(status -> chunk.forEach(this::persist));
+            report.setImported(report.getImported() + chunk.size());
+        } catch (DataAccessException chunkError) {
+            // Replay the chunk row by row to find out which rows the database refused
+            for (Row row : chunk) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> persist(row));
+                    report.setImported(report.getImported() + 1);
+                } catch (DataAccessException rowError) {
+                    fail(report, row.line(), NestedExceptionUtils.getMostSpecificCause(rowError).getMessage());
+                }
+            }
+        }
+    }
+
+    private void persist(Row row) {
+        Product product = productMapper.toEntity(row.request());
+        product.setCategory(categoryResolver.resolve(row.request().getCategory()));
+        entityManager.persist(product);
+        events.publishEvent(ProductChangedEvent.saved(product)); // delivered only if the transaction commits
+    }
+
+    private void fail(ImportReport report, long line, String message) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < maxErrors) {
+            report.getErrors().add(new ImportReport.ImportError(line, message));
+        }
+    }
+
+    private static void validate(ProductRequest request) {
+        if (request.getName() == null || request.getName().isBlank()) {
+            throw new IllegalArgumentException("name is required");
+        }
+        if (request.getCategory() == null || request.getCategory().isBlank()) {
+            throw new IllegalArgumentException("category is required");
+        }
+        if (request.getPrice() == null || request.getPrice().signum() < 0) {
+            throw new IllegalArgumentException("price must be zero or more");
+        }
+        if (request.getInventory() < 0) {
+            throw new IllegalArgumentException("inventory must be zero or more");
+        }
+    }
+
+    // Position of each of CSV_COLUMNS in the header, -1 when absent
+    private static int[] csvColumns(String header) {
+        if (header == null) {
+            throw new IllegalArgumentException("CSV input must start with a header row");
+        }
+        List<String> names = splitCsv(header).stream()
+                .map(name -> name.trim().toLowerCase(Locale.ROOT))
+                .toList();
+        int[] columns = new int[CSV_COLUMNS.length];
+        for (int i = 0; i < CSV_COLUMNS.length; i++) {
+            columns[i] = names.indexOf(CSV_COLUMNS[i]);
+        }
+        if (columns[0] < 0 || columns[2] < 0 || columns[5] < 0) {
+            throw new IllegalArgumentException("CSV header must have name, price and category columns");
+        }
+        return columns;
+    }
+
+    private static ProductRequest fromCsv(List<String> fields, int[] columns) {
+        ProductRequest request = new ProductRequest();
+        request.setName(field(fields, columns[0]));
+        request.setBrand(field(fields, columns[1]));
+        String price = field(fields, columns[2]);
+        String inventory = field(fields, columns[3]);
+        try {
+            request.setPrice(price == null ? null : new BigDecimal(price.trim()));
+            request.setInventory(inventory == null ? 0 : Integer.parseInt(inventory.trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("price and inventory must be numbers");
+        }
+        request.setDescription(field(fields, columns[4]));
+        request.setCategory(field(fields, columns[5]));
+        return request;
+    }
+
+    private static String field(List<String> fields, int column) {
+        if (column < 0 || column >= fields.size() || fields.get(column).isEmpty()) {
+            return null;
+        }
+        return fields.get(column);
+    }
+
+    // Splits one CSV line; fields may be quoted, with "" standing for a quote inside a quoted field
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private record Row(long line, ProductRequest request) {
+    }
+}
@@ -0,0 +1,509 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.dtos.ProductIndexRow;
+import com.ecommerce.ecommerce.repo.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over product name, brand, description and category name.
+ * Every word of a query must match a word of the product, either whole or, for query words of
+ * two letters or more, as its start. Matches are ranked with BM25 over field-weighted word counts,
+ * so a word in the name counts for more than the same word in the description.
+ * The index is rebuilt from the database at startup and kept current from ProductChangedEvent once
+ * the writing transaction commits. It holds ids only; callers load the products of the page they return.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final float NAME_WEIGHT = 3f;
+    private static final float BRAND_WEIGHT = 2f;
+    private static final float CATEGORY_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+
+    // A prefix hit scores less than the whole word, so "lamp" ranks "lamp" above "lampshade"
+    private static final float PREFIX_WEIGHT = 0.5f;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_QUERY_WORDS = 10;
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    // Ordinals freed by updates and deletes are reclaimed once they outnumber the products (and this)
+    private static final int MIN_DEAD_ORDINALS = 1024;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ProductRepository productRepository;
+
+    private volatile Index index = new Index();
+
+    // Changes seen while a rebuild is running, replayed onto the new index; guarded by changeLock
+    private List<ProductChangedEvent> missed;
+
+    // Same reason as in ProductFacetIndex: no monitor held while waiting for the index's write lock
+    private final ReentrantLock changeLock = new ReentrantLock();
+
+    public ProductSearchIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    // Runs before the application reports itself ready for traffic
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        changeLock.lock();
+        try {
+            missed = new ArrayList<>();
+        } finally {
+            changeLock.unlock();
+        }
+        Index fresh = new Index();
+        long after = 0;
+        List<ProductIndexRow> rows;
+        do {
+            rows = productRepository.findIndexRows(after, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            for (ProductIndexRow row : rows) {
+                fresh.put(row);
+                after = row.getId();
+            }
+        } while (rows.size() == REBUILD_BATCH_SIZE);
+
+        changeLock.lock();
+        try {
+            missed.forEach(fresh::apply);
+            missed = null;
+            index = fresh;
+        } finally {
+            changeLock.unlock();
+        }
+        log.info("Indexed {} products for search", fresh.size);
+    }
+
+    // Without a transaction (e.g. a plain repository save) the event is applied straight away
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        changeLock.lock();
+        try {
+            index.apply(event);
+            if (missed != null) {
+                missed.add(event);
+            }
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    // Product ids of hits offset to offset + limit, best first; total counts every hit
+    public Hits search(String query, int offset, int limit) {
+        List<String> words = new ArrayList<>(new LinkedHashSet<>(words(query)));
+        if (words.isEmpty() || limit <= 0) {
+            return new Hits(0, List.of());
+        }
+        return index.search(words.subList(0, Math.min(words.size(), MAX_QUERY_WORDS)), offset, limit);
+    }
+
+    // Hits on a 0-based page of pageSize, where only the best maxResults hits can be paged to
+    public Hits searchPage(String query, int page, int pageSize, int maxResults) {
+        long offset = (long) Math.max(0, page) * pageSize; // a long, so a huge page cannot wrap to a negative offset
+        if (offset >= maxResults) {
+            return new Hits(0, List.of());
+        }
+        return search(query, (int) offset, (int) Math.min(pageSize, maxResults - offset));
+    }
+
+    public record Hits(long total, List<Long> ids) {
+    }
+
+    // Ordinals in use by the current index, live or freed; stays within about twice the product count
+    int ordinalSpan() {
+        Index current = index;
+        current.lock.readLock().lock();
+        try {
+            return current.nextOrdinal;
+        } finally {
+            current.lock.readLock().unlock();
+        }
+    }
+
+    // Lower case, accents removed, split on anything that is not a letter or digit
+    static List<String> words(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String plain = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        List<String> words = new ArrayList<>();
+        for (String word : SEPARATORS.split(plain.toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static final class Index {
+
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        final NavigableMap<String, Postings> terms = new TreeMap<>();
+        final Map<Long, Integer> ordinals = new HashMap<>();
+
+        // By ordinal. An update gives the product a new ordinal, so postings stay sorted by appending;
+        // docTerms is null for a freed ordinal until compact() renumbers the live ones
+        long[] productIds = new long[1024];
+        float[] lengths = new float[1024];
+        String[][] docTerms = new String[1024][];
+        int nextOrdinal;
+        int size;
+        double totalLength;
+
+        void apply(ProductChangedEvent event) {
+            if (event.product() == null) {
+                lock.writeLock().lock();
+                try {
+                    remove(event.productId());
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } else {
+                put(event.product());
+            }
+        }
+
+        void put(ProductIndexRow row) {
+            Map<String, Float> counts = new HashMap<>();
+            count(counts, row.getName(), NAME_WEIGHT);
+            count(counts, row.getBrand(), BRAND_WEIGHT);
+            count(counts, row.getCategory(), CATEGORY_WEIGHT);
+            count(counts, row.getDescription(), DESCRIPTION_WEIGHT);
+
+            lock.writeLock().lock();
+            try {
+                remove(row.getId());
+                if (counts.isEmpty()) {
+                    return;
+                }
+                if (nextOrdinal - size > Math.max(size, MIN_DEAD_ORDINALS)) {
+                    compact();
+                }
+                int ordinal = nextOrdinal++;
+                if (ordinal == productIds.length) {
+                    productIds = Arrays.copyOf(productIds, ordinal * 2);
+                    lengths = Arrays.copyOf(lengths, ordinal * 2);
+                    docTerms = Arrays.copyOf(docTerms, ordinal * 2);
+                }
+                String[] words = new String[counts.size()];
+                float length = 0;
+                int i = 0;
+                for (Map.Entry<String, Float> count : counts.entrySet()) {
+                    terms.computeIfAbsent(count.getKey(), term -> new Postings()).add(ordinal, count.getValue());
+                    words[i++] = count.getKey();
+                    length += count.getValue();
+                }
+                productIds[ordinal] = row.getId();
+                lengths[ordinal] = length;
+                docTerms[ordinal] = words;
+                ordinals.put(row.getId(), ordinal);
+                size++;
+                totalLength += length;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void remove(Long productId) {
+            Integer ordinal = ordinals.remove(productId);
+            if (ordinal == null) {
+                return;
+            }
+            for (String term : docTerms[ordinal]) {
+                Postings postings = terms.get(term);
+                postings.remove(ordinal);
+                if (postings.size == 0) {
+                    terms.remove(term);
+                }
+            }
+            docTerms[ordinal] = null;
+            size--;
+            totalLength -= lengths[ordinal];
+        }
+
+        // Renumbers the live products from 0 in their current order, so every postings list stays sorted
+        private void compact() {
+            int[] renumbered = new int[nextOrdinal];
+            int live = 0;
+            for (int ordinal = 0; ordinal < nextOrdinal; ordinal++) {
+                if (docTerms[ordinal] != null) {
+                    renumbered[ordinal] = live;
+                    productIds[live] = productIds[ordinal];
+                    lengths[live] = lengths[ordinal];
+                    docTerms[live++] = docTerms[ordinal];
+                }
+            }
+            Arrays.fill(docTerms, live, nextOrdinal, null);
+            for (Postings postings : terms.values()) {
+                for (int i = 0; i < postings.size; i++) {
+                    postings.ordinals[i] = renumbered[postings.ordinals[i]];
+                }
+            }
+            ordinals.replaceAll((productId, ordinal) -> renumbered[ordinal]);
+            nextOrdinal = live;
+        }
+
+        private static void count(Map<String, Float> counts, String text, float weight) {
+            for (String word : words(text)) {
+                counts.merge(word, weight, Float::sum);
+            }
+        }
+
+        Hits search(List<String> words, int offset, int limit) {
+            lock.readLock().lock();
+            try {
+                if (size == 0) {
+                    return new Hits(0, List.of());
+                }
+                float averageLength = (float) (totalLength / size);
+                List<Matches> perWord = new ArrayList<>(words.size());
+                for (String word : words) {
+                    Matches matches = match(word, averageLength);
+                    if (matches.size == 0) {
+                        return new Hits(0, List.of());
+                    }
+                    perWord.add(matches);
+                }
+                // Smallest first keeps every intersection no larger than the rarest word's matches
+                perWord.sort(Comparator.comparingInt(matches -> matches.size));
+                Matches hits = perWord.get(0);
+                for (int i = 1; i < perWord.size() && hits.size > 0; i++) {
+                    hits = hits.intersect(perWord.get(i));
+                }
+                return new Hits(hits.size, top(hits, offset, limit));
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        // Products containing the word or, if it is long enough, any word starting with it. Every such
+        // word is expanded, so totals are exact; the union costs one pass over their postings.
+        private Matches match(String word, float averageLength) {
+            Postings exact = terms.get(word);
+            Collection<Postings> prefixed = word.length() >= MIN_PREFIX_LENGTH
+                    ? terms.subMap(word, false, word + Character.MAX_VALUE, false).values()
+                    : List.of();
+            if (prefixed.isEmpty()) {
+                Matches matches = new Matches(exact == null ? 0 : exact.size);
+                if (exact != null) {
+                    score(exact, 1f, averageLength, matches);
+                }
+                return matches;
+            }
+
+            // Union of several words: keep each product's best score in an array indexed by ordinal,
+            // which avoids sorting when, as for short prefixes, much of the catalog matches
+            float[] best = new float[nextOrdinal];
+            int distinct = 0;
+            if (exact != null) {
+                distinct += scoreInto(exact, 1f, averageLength, best);
+            }
+            for (Postings postings : prefixed) {
+                distinct += scoreInto(postings, PREFIX_WEIGHT, averageLength, best);
+            }
+            Matches matches = new Matches(distinct);
+            for (int ordinal = 0; ordinal < best.length; ordinal++) {
+                if (best[ordinal] > 0) {
+                    matches.ordinals[matches.size] = ordinal;
+                    matches.scores[matches.size++] = best[ordinal];
+                }
+            }
+            return matches;
+        }
+
+        private float idf(Postings postings) {
+            return (float) Math.log(1 + (size - postings.size + 0.5) / (postings.size + 0.5));
+        }
+
+        private float bm25(float tf, int ordinal, float averageLength) {
+            return tf * (K1 + 1) / (tf + K1 * (1 - B + B * lengths[ordinal] / averageLength));
+        }
+
+        private void score(Postings postings, float weight, float averageLength, Matches matches) {
+            float idf = weight * idf(postings);
+            for (int i = 0; i < postings.size; i++) {
+                int ordinal = postings.ordinals[i];
+                matches.ordinals[i] = ordinal;
+                matches.scores[i] = idf * bm25(postings.counts[i], ordinal, averageLength);
+            }
+            matches.size = postings.size;
+        }
+
+        // Raises best[ordinal] to the score of each posting; returns how many ordinals were new
+        private int scoreInto(Postings postings, float weight, float averageLength, float[] best) {
+            float idf = weight * idf(postings);
+            int added = 0;
+            for (int i = 0; i < postings.size; i++) {
+                int ordinal = postings.ordinals[i];
+                float score = idf * bm25(postings.counts[i], ordinal, averageLength);
+                if (best[ordinal] == 0) {
+                    added++;
+                }
+                if (score > best[ordinal]) {
+                    best[ordinal] = score;
+                }
+            }
+            return added;
+        }
+
+        // Best offset + limit hits by score, ties by product id, using a min-heap whose root is the worst kept hit
+        private List<Long> top(Matches hits, int offset, int limit) {
+            if (offset < 0) {
+                throw new IllegalArgumentException("offset must not be negative: " + offset);
+            }
+            int[] heap = new int[Math.min(offset + limit, hits.size)];
+            int kept = 0;
+            for (int i = 0; i < hits.size; i++) {
+                if (kept < heap.length) {
+                    heap[kept] = i;
+                    siftUp(hits, heap, kept++);
+                } else if (better(hits, i, heap[0])) {
+                    heap[0] = i;
+                    siftDown(hits, heap, kept);
+                }
+            }
+            Long[] ranked = new Long[kept];
+            while (kept > 0) {
+                ranked[kept - 1] = productIds[hits.ordinals[heap[0]]];
+                heap[0] = heap[--kept];
+                siftDown(hits, heap, kept);
+            }
+            return offset >= ranked.length ? List.of() : Arrays.asList(ranked).subList(offset, ranked.length);
+        }
+
+        private boolean better(Matches hits, int a, int b) {
+            float scoreA = hits.scores[a];
+            float scoreB = hits.scores[b];
+            if (scoreA != scoreB) {
+                return scoreA > scoreB;
+            }
+            return productIds[hits.ordinals[a]] < productIds[hits.ordinals[b]];
+        }
+
+        private void siftUp(Matches hits, int[] heap, int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!better(hits, heap[parent], heap[i])) {
+                    return;
+                }
+                swap(heap, i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(Matches hits, int[] heap, int size) {
+            int i = 0;
+            while (true) {
+                int worst = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && better(hits, heap[worst], heap[left])) {
+                    worst = left;
+                }
+                if (right < size && better(hits, heap[worst], heap[right])) {
+                    worst = right;
+                }
+                if (worst == i) {
+                    return;
+                }
+                swap(heap, i, worst);
+                i = worst;
+            }
+        }
+
+        private static void swap(int[] heap, int i, int j) {
+            int swapped = heap[i];
+            heap[i] = heap[j];
+            heap[j] = swapped;
+        }
+    }
+
+    // Ordinals of the products containing one word, ascending, with the word's weighted count in each
+    private static final class Postings {
+
+        int[] ordinals = new int[4];
+        float[] counts = new float[4];
+        int size;
+
+        void add(int ordinal, float count) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                counts = Arrays.copyOf(counts, size * 2);
+            }
+            ordinals[size] = ordinal;
+            counts[size++] = count;
+        }
+
+        void remove(int ordinal) {
+            int i = Arrays.binarySearch(ordinals, 0, size, ordinal);
+            if (i >= 0) {
+                System.arraycopy(ordinals, i + 1, ordinals, i, size - i - 1);
+                System.arraycopy(counts, i + 1, counts, i, size - i - 1);
+                size--;
+            }
+        }
+    }
+
+    // Scored matches, ascending by ordinal
+    private static final class Matches {
+
+        final int[] ordinals;
+        final float[] scores;
+        int size;
+
+        Matches(int capacity) {
+            ordinals = new int[capacity];
+            scores = new float[capacity];
+        }
+
+        // Products in both, scores added; walks the smaller side and binary searches the larger one
+        Matches intersect(Matches other) {
+            Matches small = size <= other.size ? this : other;
+            Matches large = small == this ? other : this;
+            Matches both = new Matches(small.size);
+            int from = 0;
+            for (int i = 0; i < small.size && from < large.size; i++) {
+                int j = Arrays.binarySearch(large.ordinals, from, large.size, small.ordinals[i]);
+                if (j >= 0) {
+                    both.ordinals[both.size] = small.ordinals[i];
+                    both.scores[both.size++] = small.scores[i] + large.scores[j];
+                    from = j + 1;
+                } else {
+                    from = -j - 1;
+                }
+            }
+            return both;
+        }
+    }
+}
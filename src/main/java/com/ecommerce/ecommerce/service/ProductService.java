@@ -1,18 +1,39 @@
 package com.ecommerce.ecommerce.service;
 
+import com.ecommerce.ecommerce.dtos.ProductFacets;
+import com.ecommerce.ecommerce.dtos.ProductFilter;
+import com.ecommerce.ecommerce.dtos.ProductPage;
 import com.ecommerce.ecommerce.dtos.ProductRequest;
 import com.ecommerce.ecommerce.dtos.ProductResponse;
+import com.ecommerce.ecommerce.dtos.ProductSearchPage;
+import com.ecommerce.ecommerce.dtos.VersionStamp;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ProductService {
 
     ProductResponse create(ProductRequest req);
 
+    // Unpaged listing, capped at the first ProductServiceImpl.MAX_UNPAGED_RESULTS products
     List<ProductResponse> findAll();
 
+    ProductPage findPage(Long cursor, int limit, ProductFilter filter);
+
+    // Products per category, brand and price bucket under the filter, from memory
+    ProductFacets facets(ProductFilter filter);
+
     ProductResponse findById(Long id);
 
+    // Version and last write of one product without loading it, for conditional GETs
+    VersionStamp findVersion(Long id);
+
+    // Full-text search, best match first; only the first ProductServiceImpl.MAX_UNPAGED_RESULTS hits can be paged to
+    ProductSearchPage search(String query, int page, int size);
+
+    // One query for many products; ids that do not exist are left out
+    List<ProductResponse> findAllById(Collection<Long> ids);
+
     ProductResponse update(Long id, ProductRequest req);
 
     boolean delete(Long id);
@@ -1,43 +1,76 @@
 package com.ecommerce.ecommerce.service;
 
+import com.ecommerce.ecommerce.config.CacheConfig;
+import com.ecommerce.ecommerce.dtos.ProductFacets;
+import com.ecommerce.ecommerce.dtos.ProductFilter;
+import com.ecommerce.ecommerce.dtos.ProductPage;
 import com.ecommerce.ecommerce.dtos.ProductRequest;
 import com.ecommerce.ecommerce.dtos.ProductResponse;
+import com.ecommerce.ecommerce.dtos.ProductSearchPage;
+import com.ecommerce.ecommerce.dtos.VersionStamp;
+import com.ecommerce.ecommerce.mapper.ProductMapper;
 import com.ecommerce.ecommerce.model.Product;
 import com.ecommerce.ecommerce.model.Category;
-import com.ecommerce.ecommerce.repo.CategoryRepository;
 import com.ecommerce.ecommerce.repo.ProductRepository;
+import io.micrometer.core.annotation.Timed;
 import org.modelmapper.ModelMapper;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "app.service", histogram = true)
 public class ProductServiceImpl implements ProductService {
 
+    public static final int MAX_UNPAGED_RESULTS = 1000;
+    public static final int MAX_PAGE_SIZE = 100;
+
     private final ProductRepository repo;
-    private final CategoryRepository categoryRepository;
+    private final CategoryResolver categoryResolver;
     private final ModelMapper modelMapper;
+    private final ProductMapper productMapper;
+    private final ProductSearchIndex searchIndex;
+    private final ProductFacetIndex facetIndex;
+    private final ApplicationEventPublisher events;
 
     public ProductServiceImpl(ProductRepository repo,
-                              CategoryRepository categoryRepository,
-                              ModelMapper modelMapper) {
+                              CategoryResolver categoryResolver,
+                              ModelMapper modelMapper,
+                              ProductMapper productMapper,
+                              ProductSearchIndex searchIndex,
+                              ProductFacetIndex facetIndex,
+                              ApplicationEventPublisher events) {
 
         this.repo = repo;
-        this.categoryRepository = categoryRepository;
+        this.categoryResolver = categoryResolver;
         this.modelMapper = modelMapper;
+        this.productMapper = productMapper;
+        this.searchIndex = searchIndex;
+        this.facetIndex = facetIndex;
+        this.events = events;
     }
 
     // ---------------- CREATE ----------------
     @Override
+    @Caching(
+            put = @CachePut(cacheNames = CacheConfig.PRODUCTS, key = "#result.id"),
+            evict = @CacheEvict(cacheNames = { CacheConfig.PRODUCT_PAGES, CacheConfig.PRODUCT_PAGE_JSON }, allEntries = true))
     public ProductResponse create(ProductRequest req) {
 
-        // 1. Find or create category
-        Category category = categoryRepository.findByName(req.getCategory())
-                .orElseGet(() -> {
-                    Category newCat = new Category();
-                    newCat.setName(req.getCategory());
-                    return categoryRepository.save(newCat);
-                });
+        // 1. Find or create category (interned, usually no query)
+        Category category = categoryResolver.resolve(req.getCategory());
 
         // 2. Map DTO → Entity
         Product product = modelMapper.map(req, Product.class);
@@ -47,44 +80,109 @@ public class ProductServiceImpl implements ProductService {
 
         // 4. Save product
         Product saved = repo.save(product);
+        events.publishEvent(ProductChangedEvent.saved(saved));
 
         // 5. Convert entity → response DTO
-        return modelMapper.map(saved, ProductResponse.class);
+        return productMapper.toResponse(saved);
     }
 
     // ---------------- GET ALL ----------------
     @Override
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_PAGES, key = "'all'")
+    @Transactional(readOnly = true)
     public List<ProductResponse> findAll() {
-        return repo.findAll()
-                .stream()
-                .map(product -> modelMapper.map(product, ProductResponse.class))
-                .toList();
+        return productMapper.toResponses(repo.findAllByOrderByIdAsc(PageRequest.of(0, MAX_UNPAGED_RESULTS)));
+    }
+
+    // ---------------- GET PAGE ----------------
+    @Override
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_PAGES, key = "{#cursor, #limit, #filter}")
+    @Transactional(readOnly = true)
+    public ProductPage findPage(Long cursor, int limit, ProductFilter filter) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        // Fetch one extra row to know whether another page follows
+        List<Product> products = repo.findPage(cursor,
+                filter.getCategory(),
+                filter.getBrand(),
+                filter.getMinPrice(),
+                filter.getMaxPrice(),
+                PageRequest.of(0, pageSize + 1));
+
+        boolean hasMore = products.size() > pageSize;
+        List<Product> page = hasMore ? products.subList(0, pageSize) : products;
+
+        List<ProductResponse> items = productMapper.toResponses(page);
+        Long nextCursor = hasMore ? page.get(page.size() - 1).getId() : null;
+
+        return new ProductPage(items, nextCursor);
+    }
+
+    // ---------------- FACETS ----------------
+    @Override
+    public ProductFacets facets(ProductFilter filter) {
+        return facetIndex.count(filter);
     }
 
     // ---------------- GET BY ID ----------------
     @Override
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS, key = "#id")
+    @Transactional(readOnly = true)
     public ProductResponse findById(Long id) {
         Product product = repo.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
 
-        return modelMapper.map(product, ProductResponse.class);
+        return productMapper.toResponse(product);
+    }
+
+    // ---------------- SEARCH ----------------
+    @Override
+    @Transactional(readOnly = true)
+    public ProductSearchPage search(String query, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        // Ranking happens in the index; only the products on this page are loaded
+        ProductSearchIndex.Hits hits = searchIndex.searchPage(query, page, pageSize, MAX_UNPAGED_RESULTS);
+
+        Map<Long, ProductResponse> products = productMapper.toResponses(repo.findAllById(hits.ids())).stream()
+                .collect(Collectors.toMap(ProductResponse::getId, Function.identity()));
+        List<ProductResponse> items = hits.ids().stream()
+                .map(products::get)
+                .filter(Objects::nonNull) // deleted since the search
+                .toList();
+
+        return new ProductSearchPage(items, Math.max(0, page), pageSize, hits.total());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public VersionStamp findVersion(Long id) {
+        return repo.findVersionById(id)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductResponse> findAllById(Collection<Long> ids) {
+        return productMapper.toResponses(repo.findAllById(ids));
     }
 
     // ---------------- UPDATE ----------------
     @Override
+    @Caching(
+            put = @CachePut(cacheNames = CacheConfig.PRODUCTS, key = "#id"),
+            evict = {
+                    @CacheEvict(cacheNames = CacheConfig.PRODUCT_JSON, key = "#id"),
+                    @CacheEvict(cacheNames = { CacheConfig.PRODUCT_PAGES, CacheConfig.PRODUCT_PAGE_JSON }, allEntries = true)})
+    @Transactional // images are mapped lazily, from the second-level cache when it has them
     public ProductResponse update(Long id, ProductRequest req) {
 
         // 1. Find existing product
         Product product = repo.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
 
-        // 2. Find or create category
-        Category category = categoryRepository.findByName(req.getCategory())
-                .orElseGet(() -> {
-                    Category newCat = new Category();
-                    newCat.setName(req.getCategory());
-                    return categoryRepository.save(newCat);
-                });
+        // 2. Find or create category (interned, usually no query)
+        Category category = categoryResolver.resolve(req.getCategory());
 
         // 3. Update fields
         product.setName(req.getName());
@@ -94,18 +192,24 @@ public class ProductServiceImpl implements ProductService {
         product.setDescription(req.getDescription());
         product.setCategory(category);
 
-        // 4. Save
-        Product updated = repo.save(product);
+        // 4. Save (the commit fails if the product changed since step 1, e.g. a checkout took stock).
+        // Flushed now, so the response - and the caches filled from it - carry the new version and updatedAt
+        Product updated = repo.saveAndFlush(product);
+        events.publishEvent(ProductChangedEvent.saved(updated));
 
         // 5. Convert entity → DTO
-        return modelMapper.map(updated, ProductResponse.class);
+        return productMapper.toResponse(updated);
     }
 
     // ---------------- DELETE ----------------
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = { CacheConfig.PRODUCTS, CacheConfig.PRODUCT_JSON }, key = "#id"),
+            @CacheEvict(cacheNames = { CacheConfig.PRODUCT_PAGES, CacheConfig.PRODUCT_PAGE_JSON }, allEntries = true)})
     public boolean delete(Long id) {
         if (!repo.existsById(id)) return false;
         repo.deleteById(id);
+        events.publishEvent(ProductChangedEvent.deleted(id));
         return true;
     }
 }
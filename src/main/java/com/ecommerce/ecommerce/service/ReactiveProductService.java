@@ -0,0 +1,96 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.dtos.ProductFilter;
+import com.ecommerce.ecommerce.dtos.ProductPage;
+import com.ecommerce.ecommerce.dtos.ProductResponse;
+import com.ecommerce.ecommerce.dtos.ProductSearchPage;
+import com.ecommerce.ecommerce.repo.ReactiveProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.ecommerce.ecommerce.service.ProductServiceImpl.MAX_PAGE_SIZE;
+import static com.ecommerce.ecommerce.service.ProductServiceImpl.MAX_UNPAGED_RESULTS;
+
+// The public catalog reads of ProductServiceImpl without blocking a thread: same limits, same responses.
+// Not cached; every call reads the database.
+@Service
+@ConditionalOnProperty(name = "catalog.reactive.url")
+public class ReactiveProductService {
+
+    private final ReactiveProductRepository repository;
+    private final ProductSearchIndex searchIndex;
+    private final int streamChunkSize;
+
+    public ReactiveProductService(ReactiveProductRepository repository,
+                                  ProductSearchIndex searchIndex,
+                                  @Value("${catalog.reactive.stream-chunk-size:500}") int streamChunkSize) {
+        this.repository = repository;
+        this.searchIndex = searchIndex;
+        this.streamChunkSize = streamChunkSize;
+    }
+
+    public Mono<List<ProductResponse>> findAll() {
+        return repository.findPage(null, MAX_UNPAGED_RESULTS, new ProductFilter());
+    }
+
+    // Every matching product in id order, uncapped. A chunk is read only once the previous one has been
+    // consumed, so a slow client holds one chunk in memory rather than the whole result
+    public Flux<ProductResponse> stream(ProductFilter filter) {
+        return streamAfter(null, filter);
+    }
+
+    public Mono<ProductPage> findPage(Long cursor, int limit, ProductFilter filter) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        // Fetch one extra row to know whether another page follows
+        return repository.findPage(cursor, pageSize + 1, filter).map(products -> {
+            boolean hasMore = products.size() > pageSize;
+            List<ProductResponse> items = hasMore ? products.subList(0, pageSize) : products;
+            Long nextCursor = hasMore ? items.get(items.size() - 1).getId() : null;
+            return new ProductPage(items, nextCursor);
+        });
+    }
+
+    public Mono<ProductResponse> findById(Long id) {
+        return repository.findAllById(List.of(id))
+                .flatMap(products -> Mono.justOrEmpty(products.stream().findFirst()))
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Product not found")));
+    }
+
+    public Mono<ProductSearchPage> search(String query, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        // Ranking happens in the in-memory index, which does not block; only this page is read
+        ProductSearchIndex.Hits hits = searchIndex.searchPage(query, page, pageSize, MAX_UNPAGED_RESULTS);
+
+        return repository.findAllById(hits.ids()).map(found -> {
+            Map<Long, ProductResponse> products = found.stream()
+                    .collect(Collectors.toMap(ProductResponse::getId, Function.identity()));
+            List<ProductResponse> items = hits.ids().stream()
+                    .map(products::get)
+                    .filter(Objects::nonNull) // deleted since the search
+                    .toList();
+            return new ProductSearchPage(items, Math.max(0, page), pageSize, hits.total());
+        });
+    }
+
+    private Flux<ProductResponse> streamAfter(Long cursor, ProductFilter filter) {
+        return repository.findPage(cursor, streamChunkSize, filter).flatMapMany(chunk -> {
+            Flux<ProductResponse> items = Flux.fromIterable(chunk);
+            if (chunk.size() < streamChunkSize) {
+                return items;
+            }
+            Long last = chunk.get(chunk.size() - 1).getId();
+            return items.concatWith(Flux.defer(() -> streamAfter(last, filter)));
+        });
+    }
+}
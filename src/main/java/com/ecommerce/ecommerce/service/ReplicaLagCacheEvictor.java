@@ -0,0 +1,66 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.config.CacheConfig;
+import com.ecommerce.ecommerce.model.Product;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evicts written products from the catalog caches a second time, once the replica has had
+ * read-your-writes-window to apply the write. The caches are filled by read-only transactions, so a miss
+ * right after the first eviction is loaded from the replica and may put the old row back - in the Spring
+ * caches for their whole TTL, in the second-level cache until the product is written again.
+ */
+@Component
+@ConditionalOnProperty(name = "datasource.replica.url")
+public class ReplicaLagCacheEvictor {
+
+    private final CacheManager cacheManager;
+    private final EntityManagerFactory entityManagerFactory;
+    private final Executor afterReplicaLag;
+
+    public ReplicaLagCacheEvictor(CacheManager cacheManager,
+            EntityManagerFactory entityManagerFactory,
+            @Value("${datasource.replica.read-your-writes-window:5s}") Duration window) {
+        this.cacheManager = cacheManager;
+        this.entityManagerFactory = entityManagerFactory;
+        this.afterReplicaLag = CompletableFuture.delayedExecutor(window.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // Admin writes and imports; the caches they evicted up front go again
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        evictLater(List.of(event.productId()));
+    }
+
+    // To be called once the write has committed
+    public void evictLater(Collection<Long> productIds) {
+        afterReplicaLag.execute(() -> {
+            for (String name : List.of(CacheConfig.PRODUCTS, CacheConfig.PRODUCT_JSON)) {
+                Cache products = cacheManager.getCache(name);
+                if (products != null) {
+                    productIds.forEach(products::evict);
+                }
+            }
+            for (String name : List.of(CacheConfig.PRODUCT_PAGES, CacheConfig.PRODUCT_PAGE_JSON)) {
+                Cache pages = cacheManager.getCache(name);
+                if (pages != null) {
+                    pages.clear();
+                }
+            }
+            productIds.forEach(id -> entityManagerFactory.getCache().evict(Product.class, id));
+        });
+    }
+}
@@ -3,45 +3,105 @@ package com.ecommerce.ecommerce.service;
 import com.ecommerce.ecommerce.model.Role;
 import com.ecommerce.ecommerce.model.User;
 import com.ecommerce.ecommerce.repo.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.firebase.auth.FirebaseToken;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Optional;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Objects;
 
+/**
+ * Keeps the users table in step with the Firebase claims seen at login.
+ * The last row read for each user is cached by UID, and answers a login whose claims match it
+ * if the token was issued before that read; anything else is checked against the database and
+ * written only when it differs. A newer token is always checked, since another instance may have
+ * written different claims (and the token changed them back) after this one read the row.
+ */
 @Service
+@Timed(value = "app.service", histogram = true)
 public class UserService {
 
     private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<String, Confirmed> users;
 
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${security.user-cache.max-size:10000}") long maxSize,
+                       @Value("${security.user-cache.expire-after-write:10m}") Duration expireAfterWrite,
+                       MeterRegistry registry) {
         this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, users, "users",
+                "cache.manager", "userCache", "name", "users");
     }
 
     public User createOrUpdateUser(FirebaseToken decodedToken) {
+        Object role = decodedToken.getClaims().get("role");
+        Object issuedAt = decodedToken.getClaims().get("iat"); // seconds
+        return createOrUpdateUser(decodedToken.getUid(), decodedToken.getEmail(), decodedToken.getName(),
+                role != null ? Role.valueOf(role.toString()) : Role.CUSTOMER, // fallback
+                issuedAt instanceof Number seconds ? Instant.ofEpochSecond(seconds.longValue()) : Instant.now());
+    }
 
-        String uid = decodedToken.getUid();
-        String email = decodedToken.getEmail();
-        String name = decodedToken.getName();
-        String role = decodedToken.getClaims().get("role") != null
-                ? decodedToken.getClaims().get("role").toString()
-                : "CUSTOMER"; // fallback
-
-        Optional<User> optionalUser = userRepository.findById(uid);
-        User user;
-
-        if (optionalUser.isPresent()) {
-            user = optionalUser.get();
-            user.setEmail(email);
-            user.setName(name);
-            user.setRole(Role.valueOf(role));
-        } else {
-            user = new User();
-            user.setUid(uid);
-            user.setEmail(email);
-            user.setName(name);
-            user.setRole(Role.valueOf(role)); // role from claims or CUSTOMER
+    public User createOrUpdateUser(String uid, String email, String name, Role role, Instant issuedAt) {
+        Confirmed cached = users.getIfPresent(uid);
+        if (cached != null && issuedAt.isBefore(cached.readAt()) && matches(cached.user(), email, name, role)) {
+            return copyOf(cached.user());
         }
 
-        return userRepository.save(user);
+        // Whole seconds, as in iat, and rounded down: a token counts as older only if issued before the read
+        Instant readAt = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+        // Read and write in one persistence context, so an update is not preceded by a second select
+        User user = transactionTemplate.execute(status -> {
+            User existing = userRepository.findById(uid).orElse(null);
+            if (existing != null && matches(existing, email, name, role)) {
+                return existing;
+            }
+            User changed = existing != null ? existing : new User();
+            changed.setUid(uid);
+            changed.setEmail(email);
+            changed.setName(name);
+            changed.setRole(role);
+            return userRepository.save(changed);
+        });
+        users.put(uid, new Confirmed(copyOf(user), readAt)); // only once committed
+        return user;
+    }
+
+    private static boolean matches(User user, String email, String name, Role role) {
+        return Objects.equals(user.getEmail(), email)
+                && Objects.equals(user.getName(), name)
+                && user.getRole() == role;
+    }
+
+    // Callers get their own instance, never the cached one
+    private static User copyOf(User user) {
+        User copy = new User();
+        copy.setUid(user.getUid());
+        copy.setName(user.getName());
+        copy.setEmail(user.getEmail());
+        copy.setPhoneNumber(user.getPhoneNumber());
+        copy.setShippingAddress(user.getShippingAddress());
+        copy.setRole(user.getRole());
+        return copy;
+    }
+
+    private record Confirmed(User user, Instant readAt) {
     }
 }
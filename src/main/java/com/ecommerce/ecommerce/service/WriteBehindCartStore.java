@@ -0,0 +1,456 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.config.CacheConfig;
+import com.ecommerce.ecommerce.dtos.CartItemResponse;
+import com.ecommerce.ecommerce.dtos.CartResponse;
+import com.ecommerce.ecommerce.dtos.ProductResponse;
+import com.ecommerce.ecommerce.model.Cart;
+import com.ecommerce.ecommerce.model.CartItem;
+import com.ecommerce.ecommerce.model.Product;
+import com.ecommerce.ecommerce.model.User;
+import com.ecommerce.ecommerce.repo.ProductRepository;
+import com.ecommerce.ecommerce.repo.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Cart store for cart.store=write-behind. Carts live in memory, keyed by Firebase UID, and are written
+ * to the cart/cart_item tables in batches every flush interval and on shutdown.
+ * <p>
+ * Every change is written to a {@link CartJournal} before it is acknowledged and replayed at startup,
+ * so a crash loses nothing that was acknowledged (on power loss, only with journal-fsync=true).
+ * Checkout writes the cart inside its own transaction and keeps the cart locked until that transaction
+ * completes. Cart rows are rewritten on every flush, so the cart item id in this mode is the product id.
+ */
+@Component
+@ConditionalOnProperty(name = "cart.store", havingValue = "write-behind")
+public class WriteBehindCartStore implements CartStore {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindCartStore.class);
+
+    // A cart's entry is added before it is loaded, so concurrent first requests wait for the one load
+    private final Map<String, CompletableFuture<MemoryCart>> carts = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final UserRepository userRepository;
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final CacheManager cacheManager;
+    private final CartJournal journal;
+    private final int batchSize;
+    private final long maxIdleMillis;
+
+    @Autowired
+    public WriteBehindCartStore(JdbcTemplate jdbcTemplate,
+            EntityManager entityManager,
+            TransactionTemplate transactionTemplate,
+            UserRepository userRepository,
+            ProductRepository productRepository,
+            ProductService productService,
+            CacheManager cacheManager,
+            @Value("${cart.write-behind.journal-dir:./data/cart-journal}") Path journalDir,
+            @Value("${cart.write-behind.journal-fsync:false}") boolean journalFsync,
+            @Value("${cart.write-behind.batch-size:500}") int batchSize,
+            @Value("${cart.write-behind.max-idle-ms:1800000}") long maxIdleMillis) {
+        this(jdbcTemplate, entityManager, transactionTemplate, userRepository, productRepository, productService,
+                cacheManager, new CartJournal(journalDir, journalFsync), batchSize, maxIdleMillis);
+    }
+
+    WriteBehindCartStore(JdbcTemplate jdbcTemplate,
+            EntityManager entityManager,
+            TransactionTemplate transactionTemplate,
+            UserRepository userRepository,
+            ProductRepository productRepository,
+            ProductService productService,
+            CacheManager cacheManager,
+            CartJournal journal,
+            int batchSize,
+            long maxIdleMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.userRepository = userRepository;
+        this.productRepository = productRepository;
+        this.productService = productService;
+        this.cacheManager = cacheManager;
+        this.journal = journal;
+        this.batchSize = batchSize;
+        this.maxIdleMillis = maxIdleMillis;
+    }
+
+    @Override
+    public CartResponse getCart(String userId) {
+        return toResponse(withCart(userId, Snapshot::of));
+    }
+
+    @Override
+    public CartResponse addItem(String userId, Long productId, int quantity) {
+        productService.findById(productId); // throws "Product not found"
+        Snapshot snapshot = withCart(userId, cart -> {
+            int newQuantity = cart.lines.getOrDefault(productId, 0) + quantity;
+            // Dirty before journaled: a flush that rotates the journal in between must see this cart
+            // (locked, so skipped) and keep the segment holding the change
+            dirty.add(userId);
+            journal.setLine(userId, productId, newQuantity);
+            cart.lines.put(productId, newQuantity);
+            return Snapshot.of(cart);
+        });
+        return toResponse(snapshot);
+    }
+
+    @Override
+    public CartResponse removeItem(String userId, Long productId) {
+        Snapshot snapshot = withCart(userId, cart -> {
+            if (!cart.lines.containsKey(productId)) {
+                throw new RuntimeException("Cart item not found");
+            }
+            dirty.add(userId); // before journaling, as in addItem
+            journal.setLine(userId, productId, 0);
+            cart.lines.remove(productId);
+            return Snapshot.of(cart);
+        });
+        return toResponse(snapshot);
+    }
+
+    @Override
+    public void prepareCheckout(String userId) {
+        // Loaded even when not in memory yet, so that a concurrent first load cannot pick up the lines being ordered
+        MemoryCart cart = lockCart(userId);
+        try {
+            if (dirty.contains(userId)) {
+                write(List.of(cart));
+            }
+        } catch (RuntimeException e) {
+            cart.lock.unlock();
+            throw e;
+        }
+
+        // The cart stays dirty (and so is skipped by the flusher) until the checkout commits
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        journal.clear(userId);
+                        cart.lines.clear();
+                        dirty.remove(userId);
+                    }
+                } catch (RuntimeException e) {
+                    log.error("Could not journal the checkout of cart {}", cart.id, e);
+                } finally {
+                    cart.lock.unlock();
+                }
+            }
+        });
+    }
+
+    // Writes dirty carts in batches and deletes the journal segments they cover
+    @Scheduled(fixedDelayString = "${cart.write-behind.flush-interval-ms:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            long sealed = journal.rotate();
+            List<String> userIds = new ArrayList<>(dirty);
+            boolean complete = true;
+            for (int from = 0; from < userIds.size(); from += batchSize) {
+                complete &= flushBatch(userIds.subList(from, Math.min(from + batchSize, userIds.size())));
+            }
+            if (complete) {
+                journal.deleteUpTo(sealed);
+            }
+            evictIdleCarts();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PostConstruct
+    public void recover() {
+        journal.replay(new CartJournal.Replay() {
+            @Override
+            public void setLine(String userId, long productId, int quantity) {
+                replay(userId, cart -> {
+                    if (quantity > 0) {
+                        cart.lines.put(productId, quantity);
+                    } else {
+                        cart.lines.remove(productId);
+                    }
+                });
+            }
+
+            @Override
+            public void clear(String userId) {
+                replay(userId, cart -> cart.lines.clear());
+            }
+        });
+        flush();
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        flush();
+        journal.close();
+    }
+
+    // Returns false when some carts were busy in a checkout or could not be written
+    private boolean flushBatch(List<String> userIds) {
+        List<MemoryCart> locked = new ArrayList<>(userIds.size());
+        boolean complete = true;
+        try {
+            for (String userId : userIds) {
+                // A cart busy in a checkout is skipped and stays dirty
+                MemoryCart cart = loaded(carts.get(userId));
+                if (cart == null || !cart.lock.tryLock()) {
+                    complete = false;
+                    continue;
+                }
+                locked.add(cart);
+            }
+            if (locked.isEmpty()) {
+                return complete;
+            }
+            // Locks are held until the rows are written, so a checkout can never be overwritten by an older flush
+            transactionTemplate.executeWithoutResult(status -> write(locked));
+            locked.forEach(cart -> dirty.remove(cart.userId));
+        } catch (DataAccessException e) {
+            log.warn("Could not flush {} carts, will retry", locked.size(), e);
+            complete = false;
+        } finally {
+            locked.forEach(cart -> cart.lock.unlock());
+        }
+        return complete;
+    }
+
+    // Rewrites the lines of the given carts; lines of products deleted in the meantime are dropped.
+    // New rows go through Hibernate for their pooled ids and are sent in JDBC batches.
+    private void write(List<MemoryCart> batch) {
+        entityManager.createQuery("delete from CartItem ci where ci.cart.id in :cartIds")
+                .setParameter("cartIds", batch.stream().map(cart -> cart.id).toList())
+                .executeUpdate();
+
+        Set<Long> productIds = new HashSet<>();
+        batch.forEach(cart -> productIds.addAll(cart.lines.keySet()));
+        if (productIds.isEmpty()) {
+            return;
+        }
+        Set<Long> existing = new HashSet<>(productRepository.findExistingIds(productIds));
+        for (MemoryCart cart : batch) {
+            Cart cartReference = entityManager.getReference(Cart.class, cart.id);
+            cart.lines.forEach((productId, quantity) -> {
+                if (existing.contains(productId)) {
+                    CartItem item = new CartItem();
+                    item.setCart(cartReference);
+                    item.setProduct(entityManager.getReference(Product.class, productId));
+                    item.setQuantity(quantity);
+                    entityManager.persist(item);
+                }
+            });
+        }
+        entityManager.flush();
+    }
+
+    private void evictIdleCarts() {
+        long idleSince = System.currentTimeMillis() - maxIdleMillis;
+        for (CompletableFuture<MemoryCart> entry : carts.values()) {
+            MemoryCart cart = loaded(entry);
+            if (cart != null && cart.lastAccess < idleSince && cart.lock.tryLock()) {
+                try {
+                    if (!dirty.contains(cart.userId)) {
+                        cart.evicted = true;
+                        carts.remove(cart.userId, entry);
+                    }
+                } finally {
+                    cart.lock.unlock();
+                }
+            }
+        }
+    }
+
+    // Runs the action on the user's cart under its lock, loading the cart on first use
+    private <T> T withCart(String userId, Function<MemoryCart, T> action) {
+        MemoryCart cart = lockCart(userId);
+        try {
+            return action.apply(cart);
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    // Returns the user's cart locked by the calling thread, loading it on first use
+    private MemoryCart lockCart(String userId) {
+        while (true) {
+            MemoryCart cart = cart(userId);
+            cart.lock.lock();
+            if (!cart.evicted) {
+                cart.lastAccess = System.currentTimeMillis();
+                return cart;
+            }
+            cart.lock.unlock();
+        }
+    }
+
+    // The user's cart, loaded by the first request. The load runs outside the map: inside computeIfAbsent
+    // its queries would hold the map's bin lock, pinning a virtual thread and stalling other users' carts.
+    private MemoryCart cart(String userId) {
+        CompletableFuture<MemoryCart> cart = carts.get(userId);
+        if (cart == null) {
+            CompletableFuture<MemoryCart> loading = new CompletableFuture<>();
+            cart = carts.putIfAbsent(userId, loading);
+            if (cart == null) {
+                cart = loading;
+                try {
+                    loading.complete(load(userId));
+                } catch (RuntimeException | Error e) {
+                    carts.remove(userId, loading); // the next request loads again
+                    loading.completeExceptionally(e);
+                }
+            }
+        }
+        try {
+            return cart.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause; // e.g. "User not found", for every request that waited on the load
+            }
+            throw e;
+        }
+    }
+
+    // The cart if it has been loaded, without waiting for a load in progress
+    private static MemoryCart loaded(CompletableFuture<MemoryCart> cart) {
+        return cart != null && cart.isDone() && !cart.isCompletedExceptionally() ? cart.join() : null;
+    }
+
+    private void replay(String userId, Consumer<MemoryCart> change) {
+        try {
+            withCart(userId, cart -> {
+                change.accept(cart);
+                dirty.add(userId);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Skipping journaled change of cart for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private MemoryCart load(String userId) {
+        List<Long> cartIds = jdbcTemplate.queryForList("select id from cart where user_id = ? order by id",
+                Long.class, userId);
+        if (cartIds.isEmpty()) {
+            // The user only needs checking when there is no cart yet
+            if (!userRepository.existsById(userId)) {
+                throw new RuntimeException("User not found");
+            }
+            return new MemoryCart(userId, insertCart(userId));
+        }
+        MemoryCart cart = new MemoryCart(userId, cartIds.get(0));
+        jdbcTemplate.query("select product_id, quantity from cart_item where cart_id = ? order by id",
+                rs -> {
+                    cart.lines.put(rs.getLong("product_id"), rs.getInt("quantity"));
+                }, cart.id);
+        return cart;
+    }
+
+    private long insertCart(String userId) {
+        return transactionTemplate.execute(status -> {
+            Cart cart = new Cart();
+            cart.setUser(entityManager.getReference(User.class, userId));
+            entityManager.persist(cart);
+            return cart.getId();
+        });
+    }
+
+    // Built outside the cart lock, since it may have to load products
+    private CartResponse toResponse(Snapshot cart) {
+        Map<Long, ProductResponse> products = products(cart.lines().keySet());
+        List<CartItemResponse> items = new ArrayList<>(cart.lines().size());
+        cart.lines().forEach((productId, quantity) -> {
+            ProductResponse product = products.get(productId);
+            if (product != null) {
+                items.add(new CartItemResponse(productId, quantity, product));
+            }
+        });
+        return new CartResponse(cart.id(), items);
+    }
+
+    // Products from the catalog cache; misses are loaded in one query
+    private Map<Long, ProductResponse> products(Collection<Long> ids) {
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCTS);
+        Map<Long, ProductResponse> found = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long id : ids) {
+            ProductResponse cached = cache != null ? cache.get(id, ProductResponse.class) : null;
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                misses.add(id);
+            }
+        }
+        if (!misses.isEmpty()) {
+            for (ProductResponse product : productService.findAllById(misses)) {
+                found.put(product.getId(), product);
+                if (cache != null) {
+                    cache.putIfAbsent(product.getId(), product);
+                }
+            }
+        }
+        return found;
+    }
+
+    private static final class MemoryCart {
+        final ReentrantLock lock = new ReentrantLock();
+        final String userId;
+        final long id;
+        final Map<Long, Integer> lines = new LinkedHashMap<>();
+        volatile long lastAccess = System.currentTimeMillis();
+        boolean evicted;
+
+        MemoryCart(String userId, long id) {
+            this.userId = userId;
+            this.id = id;
+        }
+    }
+
+    private record Snapshot(long id, Map<Long, Integer> lines) {
+
+        static Snapshot of(MemoryCart cart) {
+            return new Snapshot(cart.id, new LinkedHashMap<>(cart.lines));
+        }
+    }
+}
@@ -0,0 +1,141 @@
+-- Creates the schema, or brings one left by ddl-auto=update up to it: such databases are baselined at
+-- version 0 (spring.flyway.baseline-on-migrate) and run this too, so every step only adds what is missing.
+-- Constraint names are the ones Hibernate generated. Keep in step with db/migration/mysql.
+
+create table if not exists users (
+    email varchar(255),
+    name varchar(255),
+    phone_number varchar(255),
+    shipping_address varchar(255),
+    uid varchar(255) not null,
+    role enum ('ADMIN','CUSTOMER'),
+    primary key (uid)
+);
+
+create table if not exists category (
+    id bigint not null,
+    name varchar(255),
+    primary key (id)
+);
+
+create table if not exists product (
+    inventory integer,
+    price numeric(38,2),
+    category_id bigint,
+    id bigint not null,
+    updated_at timestamp(6) with time zone,
+    version bigint,
+    brand varchar(255),
+    description varchar(255),
+    name varchar(255),
+    primary key (id)
+);
+
+create table if not exists product_image (
+    id bigint not null,
+    product_id bigint,
+    image_url varchar(255),
+    primary key (id)
+);
+
+create table if not exists cart (
+    id bigint not null,
+    user_id varchar(255),
+    primary key (id)
+);
+
+create table if not exists cart_item (
+    quantity integer,
+    cart_id bigint,
+    id bigint not null,
+    product_id bigint,
+    primary key (id)
+);
+
+create table if not exists orders (
+    total_amount numeric(38,2),
+    created_at timestamp(6) with time zone,
+    id bigint not null,
+    updated_at timestamp(6) with time zone,
+    version bigint,
+    user_id varchar(255),
+    primary key (id)
+);
+
+create table if not exists order_item (
+    price numeric(38,2),
+    quantity integer,
+    id bigint not null,
+    order_id bigint,
+    product_id bigint,
+    primary key (id)
+);
+
+-- Ids were identity columns before the sequences; start each sequence past the ids already taken.
+-- Hibernate's pooled optimizer hands out the 49 values below the one it fetches, hence + 50.
+create sequence if not exists cart_item_seq start with 1 increment by 50;
+create sequence if not exists cart_seq start with 1 increment by 50;
+create sequence if not exists category_seq start with 1 increment by 50;
+create sequence if not exists order_item_seq start with 1 increment by 50;
+create sequence if not exists orders_seq start with 1 increment by 50;
+create sequence if not exists product_image_seq start with 1 increment by 50;
+create sequence if not exists product_seq start with 1 increment by 50;
+alter sequence cart_item_seq restart with (select greatest(coalesce(max(id) + 50, 1), (select base_value
+    from information_schema.sequences where sequence_schema = current_schema and sequence_name = 'CART_ITEM_SEQ')) from cart_item);
+alter sequence cart_seq restart with (select greatest(coalesce(max(id) + 50, 1), (select base_value
+    from information_schema.sequences where sequence_schema = current_schema and sequence_name = 'CART_SEQ')) from cart);
+alter sequence category_seq restart with (select greatest(coalesce(max(id) + 50, 1), (select base_value
+    from information_schema.sequences where sequence_schema = current_schema and sequence_name = 'CATEGORY_SEQ')) from category);
+alter sequence order_item_seq restart with (select greatest(coalesce(max(id) + 50, 1), (select base_value
+    from information_schema.sequences where sequence_schema = current_schema and sequence_name = 'ORDER_ITEM_SEQ')) from order_item);
+alter sequence orders_seq restart with (select greatest(coalesce(max(id) + 50, 1), (select base_value
+    from information_schema.sequences where sequence_schema = current_schema and sequence_name = 'ORDERS_SEQ')) from orders);
+alter sequence product_image_seq restart with (select greatest(coalesce(max(id) + 50, 1), (select base_value
+    from information_schema.sequences where sequence_schema = current_schema and sequence_name = 'PRODUCT_IMAGE_SEQ')) from product_image);
+alter sequence product_seq restart with (select greatest(coalesce(max(id) + 50, 1), (select base_value
+    from information_schema.sequences where sequence_schema = current_schema and sequence_name = 'PRODUCT_SEQ')) from product);
+
+-- Columns added for conditional requests and the order history; rows from before them start at version 0
+alter table product add column if not exists version bigint;
+alter table product add column if not exists updated_at timestamp(6) with time zone;
+alter table orders add column if not exists version bigint;
+alter table orders add column if not exists updated_at timestamp(6) with time zone;
+alter table orders add column if not exists created_at timestamp(6) with time zone;
+update product set version = 0 where version is null;
+update product set updated_at = current_timestamp where updated_at is null;
+update orders set version = 0 where version is null;
+update orders set updated_at = current_timestamp where updated_at is null;
+update orders set created_at = updated_at where created_at is null;
+
+-- Fold duplicates into the oldest row before the unique constraints: one cart line per product
+-- (quantities summed) and one category per name (products moved over)
+update cart_item ci set quantity = (select sum(d.quantity) from cart_item d
+        where d.cart_id = ci.cart_id and d.product_id = ci.product_id)
+    where exists (select * from cart_item d
+            where d.cart_id = ci.cart_id and d.product_id = ci.product_id and d.id > ci.id)
+        and not exists (select * from cart_item d
+            where d.cart_id = ci.cart_id and d.product_id = ci.product_id and d.id < ci.id);
+delete from cart_item ci where exists (select * from cart_item d
+    where d.cart_id = ci.cart_id and d.product_id = ci.product_id and d.id < ci.id);
+update product p set category_id = (select min(d.id) from category c join category d on d.name = c.name
+        where c.id = p.category_id)
+    where category_id in (select c.id from category c
+        where exists (select * from category d where d.name = c.name and d.id < c.id));
+delete from category c where exists (select * from category d where d.name = c.name and d.id < c.id);
+
+alter table cart_item add constraint if not exists uk_cart_item_cart_product unique (cart_id, product_id);
+alter table category add constraint if not exists uk_category_name unique (name);
+
+create index if not exists idx_orders_user_id on orders (user_id, id);
+create index if not exists idx_product_category_id on product (category_id, id);
+create index if not exists idx_product_brand_id on product (brand, id);
+create index if not exists idx_product_price on product (price);
+
+alter table cart add constraint if not exists FKg5uhi8vpsuy0lgloxk2h4w5o6 foreign key (user_id) references users (uid);
+alter table cart_item add constraint if not exists FK1uobyhgl1wvgt1jpccia8xxs3 foreign key (cart_id) references cart (id);
+alter table cart_item add constraint if not exists FKjcyd5wv4igqnw413rgxbfu4nv foreign key (product_id) references product (id);
+alter table order_item add constraint if not exists FKt4dc2r9nbvbujrljv3e23iibt foreign key (order_id) references orders (id);
+alter table order_item add constraint if not exists FK551losx9j75ss5d6bfsqvijna foreign key (product_id) references product (id);
+alter table orders add constraint if not exists FK32ql8ubntj5uh44ph9659tiih foreign key (user_id) references users (uid);
+alter table product add constraint if not exists FK1mtsbur82frn64de7balymq9s foreign key (category_id) references category (id);
+alter table product_image add constraint if not exists FK6oo0cvcdtb6qmwsga468uuukk foreign key (product_id) references product (id);
@@ -0,0 +1,251 @@
+-- Creates the schema, or brings one left by ddl-auto=update up to it: such databases are baselined at
+-- version 0 (spring.flyway.baseline-on-migrate) and run this too, so every step only adds what is missing.
+-- MySQL has no "add column/constraint if not exists", so those steps are prepared from an information_schema
+-- check ('do 0' when present). Constraint names are the ones Hibernate generated. Keep in step with db/migration/h2.
+
+create table if not exists users (
+    email varchar(255),
+    name varchar(255),
+    phone_number varchar(255),
+    shipping_address varchar(255),
+    uid varchar(255) not null,
+    role enum ('ADMIN','CUSTOMER'),
+    primary key (uid)
+) engine=InnoDB;
+
+create table if not exists category (
+    id bigint not null,
+    name varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table if not exists product (
+    inventory integer,
+    price decimal(38,2),
+    category_id bigint,
+    id bigint not null,
+    updated_at datetime(6),
+    version bigint,
+    brand varchar(255),
+    description varchar(255),
+    name varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table if not exists product_image (
+    id bigint not null,
+    product_id bigint,
+    image_url varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table if not exists cart (
+    id bigint not null,
+    user_id varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table if not exists cart_item (
+    quantity integer,
+    cart_id bigint,
+    id bigint not null,
+    product_id bigint,
+    primary key (id)
+) engine=InnoDB;
+
+create table if not exists orders (
+    total_amount decimal(38,2),
+    created_at datetime(6),
+    id bigint not null,
+    updated_at datetime(6),
+    version bigint,
+    user_id varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table if not exists order_item (
+    price decimal(38,2),
+    quantity integer,
+    id bigint not null,
+    order_id bigint,
+    product_id bigint,
+    primary key (id)
+) engine=InnoDB;
+
+-- MySQL has no sequences: Hibernate emulates each with a one-row table. Ids were AUTO_INCREMENT before them
+-- (still set on such tables, and unused: Hibernate always inserts the id), so move each past the ids taken.
+-- Hibernate's pooled optimizer hands out the 49 values below the one it fetches, hence + 50.
+create table if not exists cart_item_seq (next_val bigint) engine=InnoDB;
+insert into cart_item_seq (next_val) select 1 from dual where not exists (select * from cart_item_seq);
+update cart_item_seq set next_val = greatest(next_val, (select coalesce(max(id) + 50, 1) from cart_item));
+create table if not exists cart_seq (next_val bigint) engine=InnoDB;
+insert into cart_seq (next_val) select 1 from dual where not exists (select * from cart_seq);
+update cart_seq set next_val = greatest(next_val, (select coalesce(max(id) + 50, 1) from cart));
+create table if not exists category_seq (next_val bigint) engine=InnoDB;
+insert into category_seq (next_val) select 1 from dual where not exists (select * from category_seq);
+update category_seq set next_val = greatest(next_val, (select coalesce(max(id) + 50, 1) from category));
+create table if not exists order_item_seq (next_val bigint) engine=InnoDB;
+insert into order_item_seq (next_val) select 1 from dual where not exists (select * from order_item_seq);
+update order_item_seq set next_val = greatest(next_val, (select coalesce(max(id) + 50, 1) from order_item));
+create table if not exists orders_seq (next_val bigint) engine=InnoDB;
+insert into orders_seq (next_val) select 1 from dual where not exists (select * from orders_seq);
+update orders_seq set next_val = greatest(next_val, (select coalesce(max(id) + 50, 1) from orders));
+create table if not exists product_image_seq (next_val bigint) engine=InnoDB;
+insert into product_image_seq (next_val) select 1 from dual where not exists (select * from product_image_seq);
+update product_image_seq set next_val = greatest(next_val, (select coalesce(max(id) + 50, 1) from product_image));
+create table if not exists product_seq (next_val bigint) engine=InnoDB;
+insert into product_seq (next_val) select 1 from dual where not exists (select * from product_seq);
+update product_seq set next_val = greatest(next_val, (select coalesce(max(id) + 50, 1) from product));
+
+-- Columns added for conditional requests and the order history; rows from before them start at version 0
+set @ddl = if(exists (select * from information_schema.columns
+        where table_schema = database() and table_name = 'product' and column_name = 'version'),
+    'do 0', 'alter table product add column version bigint');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+set @ddl = if(exists (select * from information_schema.columns
+        where table_schema = database() and table_name = 'product' and column_name = 'updated_at'),
+    'do 0', 'alter table product add column updated_at datetime(6)');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+set @ddl = if(exists (select * from information_schema.columns
+        where table_schema = database() and table_name = 'orders' and column_name = 'version'),
+    'do 0', 'alter table orders add column version bigint');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+set @ddl = if(exists (select * from information_schema.columns
+        where table_schema = database() and table_name = 'orders' and column_name = 'updated_at'),
+    'do 0', 'alter table orders add column updated_at datetime(6)');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+set @ddl = if(exists (select * from information_schema.columns
+        where table_schema = database() and table_name = 'orders' and column_name = 'created_at'),
+    'do 0', 'alter table orders add column created_at datetime(6)');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+update product set version = 0 where version is null;
+update product set updated_at = current_timestamp(6) where updated_at is null;
+update orders set version = 0 where version is null;
+update orders set updated_at = current_timestamp(6) where updated_at is null;
+update orders set created_at = updated_at where created_at is null;
+
+-- Fold duplicates into the oldest row before the unique constraints: one cart line per product
+-- (quantities summed) and one category per name (products moved over)
+update cart_item ci
+    join (select min(id) as id, sum(quantity) as quantity from cart_item
+        where cart_id is not null and product_id is not null
+        group by cart_id, product_id having count(*) > 1) d on d.id = ci.id
+set ci.quantity = d.quantity;
+delete ci from cart_item ci
+    join (select cart_id, product_id, min(id) as id from cart_item
+        group by cart_id, product_id having count(*) > 1) d
+        on d.cart_id = ci.cart_id and d.product_id = ci.product_id and d.id < ci.id;
+update product p
+    join category c on c.id = p.category_id
+    join (select name, min(id) as id from category group by name having count(*) > 1) d
+        on d.name = c.name and d.id < c.id
+set p.category_id = d.id;
+delete c from category c
+    join (select name, min(id) as id from category group by name having count(*) > 1) d
+        on d.name = c.name and d.id < c.id;
+
+set @ddl = if(exists (select * from information_schema.statistics
+        where table_schema = database() and table_name = 'cart_item' and index_name = 'uk_cart_item_cart_product'),
+    'do 0', 'alter table cart_item add constraint uk_cart_item_cart_product unique (cart_id, product_id)');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+set @ddl = if(exists (select * from information_schema.statistics
+        where table_schema = database() and table_name = 'category' and index_name = 'uk_category_name'),
+    'do 0', 'alter table category add constraint uk_category_name unique (name)');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+
+set @ddl = if(exists (select * from information_schema.statistics
+        where table_schema = database() and table_name = 'orders' and index_name = 'idx_orders_user_id'),
+    'do 0', 'create index idx_orders_user_id on orders (user_id, id)');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+set @ddl = if(exists (select * from information_schema.statistics
+        where table_schema = database() and table_name = 'product' and index_name = 'idx_product_category_id'),
+    'do 0', 'create index idx_product_category_id on product (category_id, id)');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+set @ddl = if(exists (select * from information_schema.statistics
+        where table_schema = database() and table_name = 'product' and index_name = 'idx_product_brand_id'),
+    'do 0', 'create index idx_product_brand_id on product (brand, id)');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+set @ddl = if(exists (select * from information_schema.statistics
+        where table_schema = database() and table_name = 'product' and index_name = 'idx_product_price'),
+    'do 0', 'create index idx_product_price on product (price)');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+
+-- Checked by column rather than name, so a key created under another name is not added twice
+set @ddl = if(exists (select * from information_schema.key_column_usage
+        where table_schema = database() and table_name = 'cart' and column_name = 'user_id'
+            and referenced_table_name = 'users'),
+    'do 0', 'alter table cart add constraint FKg5uhi8vpsuy0lgloxk2h4w5o6 foreign key (user_id) references users (uid)');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+set @ddl = if(exists (select * from information_schema.key_column_usage
+        where table_schema = database() and table_name = 'cart_item' and column_name = 'cart_id'
+            and referenced_table_name = 'cart'),
+    'do 0', 'alter table cart_item add constraint FK1uobyhgl1wvgt1jpccia8xxs3 foreign key (cart_id) references cart (id)');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+set @ddl = if(exists (select * from information_schema.key_column_usage
+        where table_schema = database() and table_name = 'cart_item' and column_name = 'product_id'
+            and referenced_table_name = 'product'),
+    'do 0', 'alter table cart_item add constraint FKjcyd5wv4igqnw413rgxbfu4nv foreign key (product_id) references product (id)');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+set @ddl = if(exists (select * from information_schema.key_column_usage
+        where table_schema = database() and table_name = 'order_item' and column_name = 'order_id'
+            and referenced_table_name = 'orders'),
+    'do 0', 'alter table order_item add constraint FKt4dc2r9nbvbujrljv3e23iibt foreign key (order_id) references orders (id)');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+set @ddl = if(exists (select * from information_schema.key_column_usage
+        where table_schema = database() and table_name = 'order_item' and column_name = 'product_id'
+            and referenced_table_name = 'product'),
+    'do 0', 'alter table order_item add constraint FK551losx9j75ss5d6bfsqvijna foreign key (product_id) references product (id)');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+set @ddl = if(exists (select * from information_schema.key_column_usage
+        where table_schema = database() and table_name = 'orders' and column_name = 'user_id'
+            and referenced_table_name = 'users'),
+    'do 0', 'alter table orders add constraint FK32ql8ubntj5uh44ph9659tiih foreign key (user_id) references users (uid)');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+set @ddl = if(exists (select * from information_schema.key_column_usage
+        where table_schema = database() and table_name = 'product' and column_name = 'category_id'
+            and referenced_table_name = 'category'),
+    'do 0', 'alter table product add constraint FK1mtsbur82frn64de7balymq9s foreign key (category_id) references category (id)');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
+set @ddl = if(exists (select * from information_schema.key_column_usage
+        where table_schema = database() and table_name = 'product_image' and column_name = 'product_id'
+            and referenced_table_name = 'product'),
+    'do 0', 'alter table product_image add constraint FK6oo0cvcdtb6qmwsga468uuukk foreign key (product_id) references product (id)');
+prepare ddl from @ddl;
+execute ddl;
+deallocate prepare ddl;
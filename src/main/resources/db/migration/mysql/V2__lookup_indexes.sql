@@ -0,0 +1,12 @@
+-- Indexes for the hot lookups. The foreign keys got implicit indexes of their own; these are named
+-- and declared so both databases have the same ones (MySQL drops an implicit FK index once another fits).
+-- cart_item(cart_id, product_id), category(name) and orders(user_id, id) are already covered by V1.
+
+-- A user's cart (CartRepository.findByUser)
+create index idx_cart_user_id on cart (user_id);
+
+-- An order's lines (order history, order detail, checkout)
+create index idx_order_item_order_id on order_item (order_id);
+
+-- Category pages filtered by price range
+create index idx_product_category_price on product (category_id, price);
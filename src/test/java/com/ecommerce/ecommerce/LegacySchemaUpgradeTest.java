@@ -0,0 +1,114 @@
+package com.ecommerce.ecommerce;
+
+import com.ecommerce.ecommerce.config.SecondLevelCacheConfig;
+import com.ecommerce.ecommerce.model.Category;
+import com.ecommerce.ecommerce.repo.CategoryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A database created by ddl-auto=update before the migrations starts on them, with its rows kept and upgraded
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(SecondLevelCacheConfig.class)
+class LegacySchemaUpgradeTest {
+
+    private static final String URL = "jdbc:h2:mem:legacy-schema;DB_CLOSE_DELAY=-1";
+
+    // What ddl-auto=update made of the entities before the migrations: identity ids, no versions or timestamps
+    private static final String[] LEGACY = {
+            "create table users (email varchar(255), name varchar(255), phone_number varchar(255),"
+                    + " shipping_address varchar(255), uid varchar(255) not null, role enum ('ADMIN','CUSTOMER'),"
+                    + " primary key (uid))",
+            "create table category (id bigint generated by default as identity, name varchar(255), primary key (id))",
+            "create table product (inventory integer, price numeric(38,2), category_id bigint,"
+                    + " id bigint generated by default as identity, brand varchar(255), description varchar(255),"
+                    + " name varchar(255), primary key (id))",
+            "create table product_image (id bigint generated by default as identity, product_id bigint,"
+                    + " image_url varchar(255), primary key (id))",
+            "create table cart (id bigint generated by default as identity, user_id varchar(255), primary key (id))",
+            "create table cart_item (quantity integer, cart_id bigint, id bigint generated by default as identity,"
+                    + " product_id bigint, primary key (id))",
+            "create table orders (total_amount numeric(38,2), id bigint generated by default as identity,"
+                    + " user_id varchar(255), primary key (id))",
+            "create table order_item (price numeric(38,2), quantity integer, id bigint generated by default as identity,"
+                    + " order_id bigint, product_id bigint, primary key (id))",
+            "alter table cart add constraint FKg5uhi8vpsuy0lgloxk2h4w5o6 foreign key (user_id) references users (uid)",
+            "alter table cart_item add constraint FK1uobyhgl1wvgt1jpccia8xxs3 foreign key (cart_id) references cart (id)",
+            "alter table cart_item add constraint FKjcyd5wv4igqnw413rgxbfu4nv foreign key (product_id) references product (id)",
+            "alter table order_item add constraint FKt4dc2r9nbvbujrljv3e23iibt foreign key (order_id) references orders (id)",
+            "alter table order_item add constraint FK551losx9j75ss5d6bfsqvijna foreign key (product_id) references product (id)",
+            "alter table orders add constraint FK32ql8ubntj5uh44ph9659tiih foreign key (user_id) references users (uid)",
+            "alter table product add constraint FK1mtsbur82frn64de7balymq9s foreign key (category_id) references category (id)",
+            "alter table product_image add constraint FK6oo0cvcdtb6qmwsga468uuukk foreign key (product_id) references product (id)",
+
+            "insert into users (uid, name, role) values ('old', 'Old', 'CUSTOMER')",
+            "insert into category (id, name) values (1, 'Garden'), (2, 'Garden'), (7, 'Kitchen')",
+            "insert into product (id, name, price, inventory, category_id) values (1, 'Hose', 10, 5, 1),"
+                    + " (2, 'Rake', 20, 5, 2), (90, 'Kettle', 30, 5, 7)",
+            "insert into cart (id, user_id) values (1, 'old')",
+            "insert into cart_item (id, cart_id, product_id, quantity) values (1, 1, 1, 2), (2, 1, 1, 3), (3, 1, 2, 1)",
+            "insert into orders (id, user_id, total_amount) values (40, 'old', 10)",
+            "insert into order_item (id, order_id, product_id, price, quantity) values (1, 40, 1, 10, 1)"
+    };
+
+    @DynamicPropertySource
+    static void legacyDatabase(DynamicPropertyRegistry registry) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            for (String sql : LEGACY) {
+                statement.execute(sql);
+            }
+        }
+        registry.add("spring.datasource.url", () -> URL);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Test
+    void migrationsUpgradeTheExistingSchema() {
+        assertThat(jdbcTemplate.queryForList(
+                "select \"version\" from \"flyway_schema_history\" where \"version\" is not null and \"success\""
+                        + " order by \"installed_rank\"", String.class))
+                .containsExactly("0", "1", "2");
+
+        // Versions and timestamps backfilled
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from product where version = 0 and updated_at is not null", Integer.class)).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from orders where version = 0 and created_at is not null", Integer.class)).isEqualTo(1);
+
+        // Duplicates folded into the oldest row
+        assertThat(jdbcTemplate.queryForList(
+                "select quantity from cart_item where product_id = 1", Integer.class)).containsExactly(5);
+        assertThat(jdbcTemplate.queryForList(
+                "select id from category where name = 'Garden'", Long.class)).containsExactly(1L);
+        assertThat(jdbcTemplate.queryForObject(
+                "select category_id from product where id = 2", Long.class)).isEqualTo(1L);
+
+        // New ids come after the ones already taken
+        Category category = new Category();
+        category.setName("Tools");
+        assertThat(categoryRepository.save(category).getId()).isGreaterThan(7L);
+        assertThat(jdbcTemplate.queryForObject("select next value for orders_seq", Long.class)).isGreaterThan(40L);
+    }
+}
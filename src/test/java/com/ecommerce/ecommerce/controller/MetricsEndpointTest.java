@@ -0,0 +1,48 @@
+package com.ecommerce.ecommerce.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Endpoint, service, repository, pool and per-request SQL metrics all reach the Prometheus scrape
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:metrics;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+class MetricsEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    void exposesTimersAndSqlCountsWithHistograms() throws Exception {
+        mockMvc.perform(get("/api/products/page").param("limit", "5")).andExpect(status().isOk());
+
+        assertThat(registry.get("http.server.requests.sql").tag("uri", "/api/products/page")
+                .summary().totalAmount()).isPositive();
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(scrape).contains(
+                "http_server_requests_seconds_bucket",
+                "http_server_requests_sql_statements_bucket",
+                "app_service_seconds_bucket{application=\"ecommerce-maven\",class=\"com.ecommerce.ecommerce.service.ProductServiceImpl\"",
+                "spring_data_repository_invocations_seconds_bucket",
+                "hikaricp_connections_pending",
+                "cache_gets_total{application=\"ecommerce-maven\",cache=\"firebaseTokens\"",
+                "cache_gets_total{application=\"ecommerce-maven\",cache=\"productPageJson\"");
+    }
+}
@@ -0,0 +1,122 @@
+package com.ecommerce.ecommerce.controller;
+
+import com.ecommerce.ecommerce.config.CacheConfig;
+import com.ecommerce.ecommerce.dtos.ProductRequest;
+import com.ecommerce.ecommerce.dtos.ProductResponse;
+import com.ecommerce.ecommerce.model.Product;
+import com.ecommerce.ecommerce.repo.ProductRepository;
+import com.ecommerce.ecommerce.service.ProductService;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A client revalidating with its ETag gets 304 until the product changes, stock and admin updates included
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:conditional-get;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProductConditionalGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void revalidatesUntilTheProductChanges() throws Exception {
+        ProductResponse product = productService.create(request());
+        String url = "/api/products/" + product.getId();
+
+        String eTag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(eTag).isNotNull();
+
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        // A checkout takes stock with a bulk update, which must still move the version
+        transactionTemplate.executeWithoutResult(tx -> productRepository.decrementInventory(product.getId(), 1));
+        // As checkout does after commit
+        cacheManager.getCache(CacheConfig.PRODUCTS).evict(product.getId());
+        cacheManager.getCache(CacheConfig.PRODUCT_JSON).evict(product.getId());
+        entityManagerFactory.getCache().evict(Product.class, product.getId());
+
+        String next = mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(next).isNotEqualTo(eTag);
+
+        mockMvc.perform(get("/api/products"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void anAdminUpdateMovesTheETag() throws Exception {
+        ProductResponse product = productService.create(request());
+        String url = "/api/products/" + product.getId();
+        String eTag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(put("/api/admin/products/" + product.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"name": "Kettle Pro", "brand": "Brewo", "category": "Kitchen",
+                                 "price": 12, "inventory": 3}
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(1));
+
+        // Served from the caches the update filled, which must carry the new version
+        String next = mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Kettle Pro"))
+                .andExpect(jsonPath("$.version").value(1))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(next).isNotEqualTo(eTag);
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, next))
+                .andExpect(status().isNotModified());
+    }
+
+    private static ProductRequest request() {
+        ProductRequest request = new ProductRequest();
+        request.setName("Kettle");
+        request.setBrand("Brewo");
+        request.setCategory("Kitchen");
+        request.setPrice(BigDecimal.TEN);
+        request.setInventory(3);
+        return request;
+    }
+}
@@ -0,0 +1,89 @@
+package com.ecommerce.ecommerce.controller;
+
+import com.ecommerce.ecommerce.dtos.ProductRequest;
+import com.ecommerce.ecommerce.dtos.ProductResponse;
+import com.ecommerce.ecommerce.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Catalog reads are sent from cached JSON bytes, gzipped on request, and admin writes replace them
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:conditional-get;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProductJsonCacheTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductService productService;
+
+    @Test
+    void servesCachedBytesUntilAnAdminWrite() throws Exception {
+        ProductResponse product = null;
+        for (int i = 0; i < 10; i++) {
+            product = productService.create(request("Teapot " + i));
+        }
+        String url = "/api/products/page?limit=100";
+
+        MockHttpServletResponse plain = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn().getResponse();
+
+        MockHttpServletResponse gzipped = mockMvc.perform(get(url).header(HttpHeaders.ACCEPT_ENCODING, "br, gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse();
+        assertThat(gunzip(gzipped.getContentAsByteArray())).isEqualTo(plain.getContentAsByteArray());
+        assertThat(gzipped.getHeader(HttpHeaders.ETAG)).isEqualTo(plain.getHeader(HttpHeaders.ETAG));
+
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, plain.getHeader(HttpHeaders.ETAG)))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/products/" + product.getId()))
+                .andExpect(jsonPath("$.name").value("Teapot 9"));
+
+        productService.update(product.getId(), request("Teapot XL"));
+
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, plain.getHeader(HttpHeaders.ETAG)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[?(@.id == " + product.getId() + ")].name").value("Teapot XL"));
+        mockMvc.perform(get("/api/products/" + product.getId()))
+                .andExpect(jsonPath("$.name").value("Teapot XL"));
+    }
+
+    private static byte[] gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static ProductRequest request(String name) {
+        ProductRequest request = new ProductRequest();
+        request.setName(name);
+        request.setBrand("Brewo");
+        request.setDescription("Enamelled steel, holds a litre and a half.");
+        request.setCategory("Kitchen");
+        request.setPrice(BigDecimal.TEN);
+        request.setInventory(3);
+        return request;
+    }
+}
@@ -0,0 +1,151 @@
+package com.ecommerce.ecommerce.controller;
+
+import com.ecommerce.ecommerce.dtos.ProductRequest;
+import com.ecommerce.ecommerce.dtos.ProductResponse;
+import com.ecommerce.ecommerce.model.Product;
+import com.ecommerce.ecommerce.model.ProductImage;
+import com.ecommerce.ecommerce.service.ProductService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The R2DBC endpoints answer exactly what the MVC ones do, and stream large results in chunks
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactive-catalog;DB_CLOSE_DELAY=-1",
+        "catalog.reactive.url=r2dbc:h2:mem:///reactive-catalog;DB_CLOSE_DELAY=-1",
+        "catalog.reactive.stream-chunk-size=40" })
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReactiveProductControllerTest {
+
+    private static final int PRODUCTS = 150;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private static ProductResponse imaged;
+
+    @BeforeEach
+    void seedOnce() {
+        if (imaged != null) {
+            return;
+        }
+        for (int i = 0; i < PRODUCTS; i++) {
+            ProductResponse product = productService.create(productRequest("Kettle " + i, i % 2 == 0 ? "Kitchen" : "Garden"));
+            if (i == 7) {
+                imaged = product;
+            }
+        }
+        transactionTemplate.executeWithoutResult(tx -> {
+            Product product = entityManager.find(Product.class, imaged.getId());
+            for (int n = 1; n <= 2; n++) {
+                ProductImage image = new ProductImage();
+                image.setProduct(product);
+                image.setImageUrl("https://cdn.example.com/kettle-" + n + ".jpg");
+                entityManager.persist(image);
+            }
+        });
+        // The images went in behind the service's back; let the MVC side read them too
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        entityManager.getEntityManagerFactory().getCache().evictAll();
+    }
+
+    @Test
+    void sameResponsesAsTheMvcEndpoints() throws Exception {
+        for (String path : List.of(
+                "/" + imaged.getId(),
+                "/page?limit=25&category=Kitchen&minPrice=5",
+                "/page?cursor=" + imaged.getId() + "&limit=100",
+                "/search?q=kettle%207&size=5",
+                "/search?q=kettle&page=30000000&size=100")) { // page * size overflows an int
+            JsonNode mvc = json(mockMvc.perform(get("/api/products" + path))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            JsonNode reactive = json(async(get("/api/reactive/products" + path)));
+            assertThat(reactive).as(path).isEqualTo(mvc);
+        }
+        JsonNode product = json(async(get("/api/reactive/products/" + imaged.getId())));
+        assertThat(product.get("images")).hasSize(2);
+    }
+
+    @Test
+    void streamsEveryProductAsNdjson() throws Exception {
+        String body = async(get("/api/reactive/products/stream").accept(MediaType.APPLICATION_NDJSON));
+
+        List<JsonNode> lines = body.lines().map(this::json).toList();
+        assertThat(lines).hasSize(PRODUCTS); // four chunks of 40 at most
+        assertThat(lines).extracting(line -> line.get("id").asLong()).isSorted();
+        assertThat(lines).filteredOn(line -> line.get("id").asLong() == imaged.getId())
+                .singleElement()
+                .satisfies(line -> assertThat(line.get("images")).hasSize(2));
+
+        String kitchen = async(get("/api/reactive/products/stream?category=Kitchen")
+                .accept(MediaType.APPLICATION_NDJSON));
+        assertThat(kitchen.lines()).hasSize(PRODUCTS / 2);
+    }
+
+    private String async(RequestBuilder request) throws Exception {
+        MvcResult started = mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private JsonNode json(String body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ProductRequest productRequest(String name, String category) {
+        ProductRequest request = new ProductRequest();
+        request.setName(name);
+        request.setBrand("Boilo");
+        request.setDescription("Stovetop kettle, whistles when it boils.");
+        request.setCategory(category);
+        request.setPrice(BigDecimal.TEN);
+        request.setInventory(5);
+        return request;
+    }
+}
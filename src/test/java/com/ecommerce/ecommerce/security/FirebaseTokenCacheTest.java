@@ -0,0 +1,93 @@
+package com.ecommerce.ecommerce.security;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseAuthException;
+import com.google.firebase.auth.FirebaseToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Verified tokens are kept until their exp claim, and a user's tokens can be dropped all at once
+class FirebaseTokenCacheTest {
+
+    private final FirebaseAuth firebaseAuth = mock(FirebaseAuth.class);
+
+    private final FirebaseTokenCache tokenCache = new FirebaseTokenCache(100, new SimpleMeterRegistry());
+
+    private MockedStatic<FirebaseAuth> firebase;
+
+    @BeforeEach
+    void stubFirebase() {
+        firebase = mockStatic(FirebaseAuth.class);
+        firebase.when(FirebaseAuth::getInstance).thenReturn(firebaseAuth);
+    }
+
+    @AfterEach
+    void closeFirebase() {
+        firebase.close();
+    }
+
+    @Test
+    void aTokenIsCachedUntilItsExpClaim() throws Exception {
+        Instant expiresAt = Instant.ofEpochSecond(Instant.now().getEpochSecond() + 2);
+        issue("short-lived", "alice", expiresAt);
+
+        FirebaseToken first = tokenCache.verify("short-lived");
+        assertThat(tokenCache.verify("short-lived")).isSameAs(first);
+        verify(firebaseAuth, times(1)).verifyIdToken("short-lived");
+
+        Thread.sleep(Duration.between(Instant.now(), expiresAt).plusMillis(100).toMillis());
+        tokenCache.verify("short-lived");
+        verify(firebaseAuth, times(2)).verifyIdToken("short-lived");
+    }
+
+    @Test
+    void anExpiredTokenIsNotCached() throws Exception {
+        issue("expired", "alice", Instant.now().minusSeconds(10));
+
+        tokenCache.verify("expired");
+        tokenCache.verify("expired");
+
+        verify(firebaseAuth, times(2)).verifyIdToken("expired");
+    }
+
+    @Test
+    void revokeUserDropsOnlyThatUsersTokens() throws Exception {
+        Instant expiresAt = Instant.now().plusSeconds(3600);
+        issue("alice-laptop", "alice", expiresAt);
+        issue("alice-phone", "alice", expiresAt);
+        issue("bob", "bob", expiresAt);
+        for (String idToken : new String[] { "alice-laptop", "alice-phone", "bob" }) {
+            tokenCache.verify(idToken);
+        }
+
+        tokenCache.revokeUser("alice");
+        for (String idToken : new String[] { "alice-laptop", "alice-phone", "bob" }) {
+            tokenCache.verify(idToken);
+        }
+
+        verify(firebaseAuth, times(2)).verifyIdToken("alice-laptop");
+        verify(firebaseAuth, times(2)).verifyIdToken("alice-phone");
+        verify(firebaseAuth, times(1)).verifyIdToken("bob");
+    }
+
+    private void issue(String idToken, String uid, Instant expiresAt) throws FirebaseAuthException {
+        FirebaseToken token = mock(FirebaseToken.class);
+        when(token.getUid()).thenReturn(uid);
+        when(token.getClaims()).thenReturn(Map.of("exp", expiresAt.getEpochSecond()));
+        when(firebaseAuth.verifyIdToken(idToken)).thenReturn(token);
+    }
+}
@@ -0,0 +1,131 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.config.SecondLevelCacheConfig;
+import com.ecommerce.ecommerce.repo.CategoryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Instances racing to create the same new category end up with one row and one id
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:category-resolver;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(SecondLevelCacheConfig.class)
+class CategoryResolverTest {
+
+    private static final int INSTANCES = 8;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentCreatesOfTheSameNameShareOneRow() throws Exception {
+        // Separate resolvers stand in for separate application instances, so none sees another's map
+        List<CategoryResolver> resolvers = new ArrayList<>();
+        for (int i = 0; i < INSTANCES; i++) {
+            resolvers.add(new CategoryResolver(categoryRepository, transactionManager));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(INSTANCES);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> ids = new ArrayList<>();
+        for (CategoryResolver resolver : resolvers) {
+            ids.add(pool.submit(() -> {
+                start.await();
+                return resolver.resolve("Garden").getId();
+            }));
+        }
+        start.countDown();
+
+        List<Long> resolved = new ArrayList<>();
+        for (Future<Long> id : ids) {
+            resolved.add(id.get(30, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+
+        assertThat(resolved).containsOnly(resolved.get(0));
+        assertThat(categoryRepository.findAll())
+                .filteredOn(category -> category.getName().equals("Garden"))
+                .hasSize(1);
+    }
+
+    @Test
+    void aNameWaitingOnTheDatabaseDoesNotHoldUpOthers() throws Exception {
+        CategoryResolver resolver = new CategoryResolver(categoryRepository, transactionManager);
+        assertThat("Aa-tools".hashCode()).isEqualTo("BB-tools".hashCode()); // same bin of the resolver's map
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try (Connection blocker = dataSource.getConnection()) {
+            // An uncommitted insert of the same name makes the resolver's insert wait for its outcome
+            blocker.setAutoCommit(false);
+            try (Statement statement = blocker.createStatement()) {
+                statement.executeUpdate("insert into category (id, name) values (-1, 'Aa-tools')");
+            }
+            Future<Long> waiting = pool.submit(() -> resolver.resolve("Aa-tools").getId());
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (jdbcTemplate.queryForObject("select count(*) from information_schema.sessions"
+                    + " where executing_statement like 'insert into category%'", Integer.class) == 0) {
+                assertThat(System.nanoTime()).isLessThan(deadline);
+                Thread.sleep(10);
+            }
+
+            assertThat(pool.submit(() -> resolver.resolve("BB-tools").getId()).get(5, TimeUnit.SECONDS)).isNotNull();
+            assertThat(waiting).isNotDone();
+
+            blocker.rollback();
+            assertThat(waiting.get(30, TimeUnit.SECONDS)).isNotEqualTo(-1L);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void aMissingNameIsRejected() {
+        CategoryResolver resolver = new CategoryResolver(categoryRepository, transactionManager);
+
+        assertThatThrownBy(() -> resolver.resolve(null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("category is required");
+        assertThatThrownBy(() -> resolver.resolve(" ")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void resolvesKnownNamesWithoutTheDatabase() {
+        CategoryResolver resolver = new CategoryResolver(categoryRepository, transactionManager);
+        Long id = resolver.resolve("Books").getId();
+
+        categoryRepository.deleteAll(); // a second lookup would now create a new row with a new id
+
+        assertThat(resolver.resolve("Books").getId()).isEqualTo(id);
+        assertThat(categoryRepository.count()).isZero();
+    }
+}
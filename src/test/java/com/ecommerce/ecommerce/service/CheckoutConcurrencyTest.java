@@ -0,0 +1,152 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.config.CacheConfig;
+import com.ecommerce.ecommerce.config.SecondLevelCacheConfig;
+import com.ecommerce.ecommerce.mapper.CartMapperImpl;
+import com.ecommerce.ecommerce.mapper.OrderMapperImpl;
+import com.ecommerce.ecommerce.mapper.ProductMapperImpl;
+import com.ecommerce.ecommerce.model.Cart;
+import com.ecommerce.ecommerce.model.CartItem;
+import com.ecommerce.ecommerce.model.Category;
+import com.ecommerce.ecommerce.model.Product;
+import com.ecommerce.ecommerce.model.Role;
+import com.ecommerce.ecommerce.model.User;
+import com.ecommerce.ecommerce.repo.CartRepository;
+import com.ecommerce.ecommerce.repo.CategoryRepository;
+import com.ecommerce.ecommerce.repo.OrderRepository;
+import com.ecommerce.ecommerce.repo.ProductRepository;
+import com.ecommerce.ecommerce.repo.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Hundreds of buyers race for a hot SKU: every unit is sold exactly once and nobody deadlocks
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:checkout-concurrency;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // every checkout commits on its own
+@Import({ CacheConfig.class, SecondLevelCacheConfig.class, OrderService.class, JpaCartStore.class, CartMapperImpl.class,
+        OrderMapperImpl.class, ProductMapperImpl.class })
+class CheckoutConcurrencyTest {
+
+    private static final int BUYERS = 300;
+    private static final int HOT_STOCK = 100;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    void concurrentCheckoutsNeverOversell() throws Exception {
+        Category category = new Category();
+        category.setName("Consoles");
+        categoryRepository.save(category);
+        Product hot = productRepository.save(product("Hot SKU", HOT_STOCK, category));
+        Product plenty = productRepository.save(product("Plenty SKU", 1_000_000, category));
+
+        List<String> buyers = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            User user = new User();
+            user.setUid("buyer-" + i);
+            user.setRole(Role.CUSTOMER);
+            userRepository.save(user);
+
+            // Half the carts list the products in the opposite order
+            Cart cart = new Cart();
+            cart.setUser(user);
+            if (i % 2 == 0) {
+                cart.getItems().add(line(cart, hot));
+                cart.getItems().add(line(cart, plenty));
+            } else {
+                cart.getItems().add(line(cart, plenty));
+                cart.getItems().add(line(cart, hot));
+            }
+            cartRepository.save(cart);
+            buyers.add(user.getUid());
+        }
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger outOfStock = new AtomicInteger();
+        List<Throwable> unexpected = new ArrayList<>();
+
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        long start = System.nanoTime();
+        List<Future<?>> results = buyers.stream()
+                .<Future<?>>map(uid -> pool.submit(() -> {
+                    try {
+                        orderService.checkout(uid);
+                        succeeded.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        if (e.getMessage() != null && e.getMessage().contains("insufficient stock")) {
+                            outOfStock.incrementAndGet();
+                        } else {
+                            synchronized (unexpected) {
+                                unexpected.add(e);
+                            }
+                        }
+                    }
+                }))
+                .toList();
+        for (Future<?> result : results) {
+            result.get(60, TimeUnit.SECONDS);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        pool.shutdown();
+
+        assertThat(unexpected).isEmpty();
+        assertThat(succeeded.get()).isEqualTo(HOT_STOCK);
+        assertThat(outOfStock.get()).isEqualTo(BUYERS - HOT_STOCK);
+        assertThat(productRepository.findById(hot.getId()).orElseThrow().getInventory()).isZero();
+        assertThat(productRepository.findById(plenty.getId()).orElseThrow().getInventory())
+                .isEqualTo(1_000_000 - HOT_STOCK);
+        assertThat(orderRepository.count()).isEqualTo(HOT_STOCK);
+        // Generous bound; locally this takes well under a second
+        assertThat(elapsedMillis).isLessThan(30_000);
+    }
+
+    private static Product product(String name, int inventory, Category category) {
+        Product product = new Product();
+        product.setName(name);
+        product.setBrand("Brand");
+        product.setPrice(BigDecimal.TEN);
+        product.setInventory(inventory);
+        product.setCategory(category);
+        return product;
+    }
+
+    private static CartItem line(Cart cart, Product product) {
+        CartItem item = new CartItem();
+        item.setCart(cart);
+        item.setProduct(product);
+        item.setQuantity(1);
+        return item;
+    }
+}
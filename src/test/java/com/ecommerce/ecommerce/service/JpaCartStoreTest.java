@@ -0,0 +1,155 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.config.CacheConfig;
+import com.ecommerce.ecommerce.config.SecondLevelCacheConfig;
+import com.ecommerce.ecommerce.dtos.ApiResponse;
+import com.ecommerce.ecommerce.exceptions.CartControllerAdvice;
+import com.ecommerce.ecommerce.mapper.CartMapperImpl;
+import com.ecommerce.ecommerce.mapper.ProductMapperImpl;
+import com.ecommerce.ecommerce.model.Category;
+import com.ecommerce.ecommerce.model.Product;
+import com.ecommerce.ecommerce.model.Role;
+import com.ecommerce.ecommerce.model.User;
+import com.ecommerce.ecommerce.repo.CategoryRepository;
+import com.ecommerce.ecommerce.repo.ProductRepository;
+import com.ecommerce.ecommerce.repo.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+// Adding to a cart: one line per product, even when the same new product is added from several requests at once
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:jpa-cart-store;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // every add commits on its own
+@Import({ CacheConfig.class, SecondLevelCacheConfig.class, JpaCartStore.class, CartMapperImpl.class,
+        ProductMapperImpl.class })
+class JpaCartStoreTest {
+
+    private static final int REQUESTS = 8;
+
+    @Autowired
+    private JpaCartStore cartStore;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Category category;
+
+    @BeforeEach
+    void seed() {
+        category = new Category();
+        category.setName("Garden " + System.nanoTime());
+        categoryRepository.save(category);
+    }
+
+    @Test
+    void concurrentAddsOfTheSameNewProductAllCount() throws Exception {
+        String uid = persistUser("racer");
+        cartStore.getCart(uid); // the cart exists, so every request races for the line only
+
+        ExecutorService pool = Executors.newFixedThreadPool(REQUESTS);
+        try {
+            for (int round = 0; round < 20; round++) {
+                Long productId = productRepository.save(product("Hose " + round)).getId();
+                CyclicBarrier start = new CyclicBarrier(REQUESTS);
+                List<Future<?>> adds = new ArrayList<>();
+                for (int i = 0; i < REQUESTS; i++) {
+                    adds.add(pool.submit(() -> {
+                        start.await();
+                        return cartStore.addItem(uid, productId, 1);
+                    }));
+                }
+                for (Future<?> add : adds) {
+                    add.get(30, TimeUnit.SECONDS); // a lost race must not surface as an error
+                }
+
+                assertThat(jdbcTemplate.queryForList(
+                        "select quantity from cart_item ci join cart c on c.id = ci.cart_id"
+                                + " where c.user_id = ? and ci.product_id = ?", Integer.class, uid, productId))
+                        .containsExactly(REQUESTS);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void addingAMissingProductIsNotFound() {
+        String uid = persistUser("lost");
+        Long mower = productRepository.save(product("Mower")).getId();
+        cartStore.addItem(uid, mower, 1);
+
+        assertThatThrownBy(() -> cartStore.addItem(uid, 999_999L, 1)).hasMessage("Product not found");
+        assertThat(cartStore.addItem(uid, mower, 2).getItems())
+                .singleElement()
+                .satisfies(item -> assertThat(item.getQuantity()).isEqualTo(3));
+    }
+
+    @Test
+    void onlyADuplicateCartLineIsAConflict() {
+        String uid = persistUser("conflicted");
+        Long rake = productRepository.save(product("Rake")).getId();
+        Long cartId = cartStore.addItem(uid, rake, 1).getId();
+        CartControllerAdvice advice = new CartControllerAdvice();
+
+        DataIntegrityViolationException duplicate = catchThrowableOfType(DataIntegrityViolationException.class,
+                () -> jdbcTemplate.update("insert into cart_item (id, cart_id, product_id, quantity) values (?, ?, ?, 1)",
+                        -1L, cartId, rake));
+        DataIntegrityViolationException missingCart = catchThrowableOfType(DataIntegrityViolationException.class,
+                () -> jdbcTemplate.update("insert into cart_item (id, cart_id, product_id, quantity) values (?, ?, ?, 1)",
+                        -2L, 999_999L, rake));
+
+        ResponseEntity<ApiResponse> conflict = advice.handleDataIntegrityViolation(duplicate);
+        ResponseEntity<ApiResponse> error = advice.handleDataIntegrityViolation(missingCart);
+        assertThat(conflict.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(error.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    private String persistUser(String uid) {
+        User user = new User();
+        user.setUid(uid + "-" + System.nanoTime());
+        user.setRole(Role.CUSTOMER);
+        return userRepository.save(user).getUid();
+    }
+
+    private Product product(String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setBrand("Brand");
+        product.setPrice(BigDecimal.TEN);
+        product.setInventory(100);
+        product.setCategory(category);
+        return product;
+    }
+}
@@ -0,0 +1,74 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.dtos.ProductFacets;
+import com.ecommerce.ecommerce.dtos.ProductFilter;
+import com.ecommerce.ecommerce.dtos.ProductIndexRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Each facet applies every filter but its own; price bounds are inclusive, as in ProductRepository.findPage
+class ProductFacetIndexTest {
+
+    private ProductFacetIndex facets;
+
+    @BeforeEach
+    void setUp() {
+        facets = new ProductFacetIndex(null, new BigDecimal[] { new BigDecimal("10"), new BigDecimal("50") });
+        save(1, "Kitchen", "Acme", "9.99");
+        save(2, "Kitchen", "Acme", "10.00");
+        save(3, "Kitchen", "Brewo", "49.50");
+        save(4, "Garden", "Acme", "120");
+        save(5, "Garden", "Verdo", "35");
+    }
+
+    @Test
+    void countsEveryFacetWithoutItsOwnFilter() {
+        ProductFacets result = facets.count(new ProductFilter("Kitchen", "Acme", null, null));
+
+        assertThat(result.getTotal()).isEqualTo(2);
+        // Other categories still show what picking them would give with brand Acme
+        assertThat(result.getCategories()).extracting("value", "count")
+                .containsExactly(tuple("Kitchen", 2L), tuple("Garden", 1L));
+        assertThat(result.getBrands()).extracting("value", "count")
+                .containsExactly(tuple("Acme", 2L), tuple("Brewo", 1L));
+        assertThat(result.getPrices()).extracting("count").containsExactly(1L, 1L, 0L);
+    }
+
+    @Test
+    void filtersOnArbitraryPriceRanges() {
+        // 10.00 to 49.50 straddles the 10 and 50 bucket bounds
+        ProductFacets result = facets.count(new ProductFilter(null, null, new BigDecimal("10"), new BigDecimal("49.5")));
+
+        assertThat(result.getTotal()).isEqualTo(3);
+        assertThat(result.getCategories()).extracting("value", "count")
+                .containsExactly(tuple("Kitchen", 2L), tuple("Garden", 1L));
+        assertThat(result.getPrices()).extracting("min", "max", "count").containsExactly(
+                tuple(new BigDecimal("0.00"), new BigDecimal("10.00"), 1L),
+                tuple(new BigDecimal("10.00"), new BigDecimal("50.00"), 3L),
+                tuple(new BigDecimal("50.00"), null, 1L));
+    }
+
+    @Test
+    void followsUpdatesAndDeletes() {
+        save(3, "Garden", "Brewo", "60");
+        facets.onProductChanged(ProductChangedEvent.deleted(5L));
+
+        ProductFacets result = facets.count(new ProductFilter());
+
+        assertThat(result.getTotal()).isEqualTo(4);
+        assertThat(result.getCategories()).extracting("value", "count")
+                .containsExactly(tuple("Garden", 2L), tuple("Kitchen", 2L));
+        assertThat(result.getBrands()).extracting("value").containsExactly("Acme", "Brewo");
+        assertThat(result.getPrices()).extracting("count").containsExactly(1L, 1L, 2L);
+    }
+
+    private void save(long id, String category, String brand, String price) {
+        facets.onProductChanged(new ProductChangedEvent(id,
+                new ProductIndexRow(id, "Product " + id, brand, null, category, new BigDecimal(price))));
+    }
+}
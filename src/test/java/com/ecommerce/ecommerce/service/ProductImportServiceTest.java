@@ -0,0 +1,92 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.config.CacheConfig;
+import com.ecommerce.ecommerce.config.SecondLevelCacheConfig;
+import com.ecommerce.ecommerce.dtos.ImportReport;
+import com.ecommerce.ecommerce.mapper.ProductMapperImpl;
+import com.ecommerce.ecommerce.model.Product;
+import com.ecommerce.ecommerce.repo.CategoryRepository;
+import com.ecommerce.ecommerce.repo.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Streams rows in chunks of 3; bad rows are reported by line and the rest is still imported
+@DataJpaTest(properties = {
+        "catalog.import.chunk-size=3",
+        "spring.datasource.url=jdbc:h2:mem:product-import;DB_CLOSE_DELAY=-1" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // every chunk commits on its own
+@Import({ CacheConfig.class, SecondLevelCacheConfig.class, JacksonAutoConfiguration.class, ProductImportService.class, CategoryResolver.class,
+        ProductMapperImpl.class })
+class ProductImportServiceTest {
+
+    @Autowired
+    private ProductImportService importService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Test
+    void importsCsvAndReportsBadRows() throws IOException {
+        String csv = """
+                name,brand,price,inventory,description,category
+                Kettle,Acme,19.99,10,"Boils water, fast",csv-kitchen
+                Toaster,Acme,not-a-price,5,,csv-kitchen
+                \"Mug \"\"XL\"\"\",,4.50,100,,csv-kitchen
+
+                Lamp,Lumo,25,3,,csv-living
+                %s,Acme,1,1,,csv-living
+                ,Acme,1,1,,csv-living
+                Chair,Sitwell,80,2,,csv-living
+                """.formatted("x".repeat(300)); // too long for the name column
+
+        ImportReport report = importService.importProducts(bytes(csv), ProductImportService.TEXT_CSV);
+
+        assertThat(report.getRowsRead()).isEqualTo(7);
+        assertThat(report.getImported()).isEqualTo(4);
+        assertThat(report.getFailed()).isEqualTo(3);
+        assertThat(report.getErrors()).extracting(ImportReport.ImportError::getLine).containsExactly(3L, 8L, 7L);
+
+        Product mug = productRepository.findAll().stream()
+                .filter(product -> product.getName().equals("Mug \"XL\""))
+                .findFirst().orElseThrow();
+        assertThat(mug.getPrice()).isEqualByComparingTo("4.50");
+        assertThat(categoryRepository.findByName("csv-kitchen")).isPresent();
+        assertThat(categoryRepository.findByName("csv-living")).isPresent();
+    }
+
+    @Test
+    void importsNdjson() throws IOException {
+        String ndjson = """
+                {"name":"Desk","brand":"Oakly","price":120,"inventory":4,"category":"json-office"}
+                {"name":"Desk lamp","price":"oops","category":"json-office"}
+                {"name":"Monitor arm","brand":"Oakly","price":35.5,"inventory":12,"category":"json-office"}
+                """;
+
+        ImportReport report = importService.importProducts(bytes(ndjson), MediaType.valueOf("application/x-ndjson"));
+
+        assertThat(report.getImported()).isEqualTo(2);
+        assertThat(report.getErrors()).singleElement()
+                .extracting(ImportReport.ImportError::getLine).isEqualTo(2L);
+    }
+
+    private static ByteArrayInputStream bytes(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
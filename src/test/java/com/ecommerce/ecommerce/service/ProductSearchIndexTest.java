@@ -0,0 +1,141 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.config.CacheConfig;
+import com.ecommerce.ecommerce.config.SecondLevelCacheConfig;
+import com.ecommerce.ecommerce.config.ModelMapperConfig;
+import com.ecommerce.ecommerce.dtos.ProductRequest;
+import com.ecommerce.ecommerce.dtos.ProductResponse;
+import com.ecommerce.ecommerce.dtos.ProductSearchPage;
+import com.ecommerce.ecommerce.mapper.ProductMapperImpl;
+import com.ecommerce.ecommerce.model.Category;
+import com.ecommerce.ecommerce.model.Product;
+import com.ecommerce.ecommerce.repo.CategoryRepository;
+import com.ecommerce.ecommerce.repo.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Search follows product writes as they commit, and a rebuild picks up rows written behind its back
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:product-search;DB_CLOSE_DELAY=-1")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ CacheConfig.class, SecondLevelCacheConfig.class, ModelMapperConfig.class, ProductServiceImpl.class, CategoryResolver.class,
+        ProductSearchIndex.class, ProductFacetIndex.class, ProductMapperImpl.class })
+class ProductSearchIndexTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Test
+    void ranksMatchesAndFollowsWrites() {
+        ProductResponse lamp = productService.create(request("Desk Lamp", "Lumo", "Warm light", "Lighting"));
+        ProductResponse shade = productService.create(request("Lampshade", "Lumo", "Linen", "Lighting"));
+        ProductResponse desk = productService.create(request("Oak desk", "Woody", "Fits a lamp", "Furniture"));
+        productService.create(request("Chair", "Woody", "Oak frame", "Furniture"));
+
+        // A whole word in the name ranks first; prefixes and descriptions match too
+        assertThat(ids(productService.search("lamp", 0, 10)))
+                .startsWith(lamp.getId())
+                .containsExactlyInAnyOrder(lamp.getId(), desk.getId(), shade.getId());
+        // Every word must match; accents and case do not matter
+        assertThat(ids(productService.search("DÉSK lam", 0, 10))).containsExactly(lamp.getId(), desk.getId());
+        assertThat(ids(productService.search("furniture lumo", 0, 10))).isEmpty();
+
+        ProductSearchPage second = productService.search("woody", 1, 1);
+        assertThat(second.getTotal()).isEqualTo(2);
+        assertThat(second.getItems()).hasSize(1);
+        // Pages past the reachable results are empty, however large the page number
+        assertThat(productService.search("woody", 1000, 1).getItems()).isEmpty();
+        assertThat(productService.search("woody", 30_000_000, 100).getItems()).isEmpty();
+        assertThatThrownBy(() -> searchIndex.search("woody", -1, 10)).isInstanceOf(IllegalArgumentException.class);
+
+        productService.update(shade.getId(), request("Floor light", "Lumo", "Linen", "Lighting"));
+        assertThat(ids(productService.search("lamp", 0, 10))).containsExactly(lamp.getId(), desk.getId());
+        assertThat(ids(productService.search("floor", 0, 10))).containsExactly(shade.getId());
+
+        productService.delete(desk.getId());
+        assertThat(ids(productService.search("lamp", 0, 10))).containsExactly(lamp.getId());
+    }
+
+    @Test
+    void rebuildIndexesRowsWrittenDirectly() {
+        Category category = new Category();
+        category.setName("Garden");
+        category = categoryRepository.save(category);
+
+        Product hose = new Product();
+        hose.setName("Garden hose");
+        hose.setBrand("Aqua");
+        hose.setPrice(BigDecimal.TEN);
+        hose.setInventory(5);
+        hose.setCategory(category);
+        hose = productRepository.save(hose); // no event, so the index does not know about it yet
+
+        assertThat(searchIndex.search("hose", 0, 10).ids()).isEmpty();
+        searchIndex.rebuild();
+        assertThat(searchIndex.search("hose", 0, 10).ids()).containsExactly(hose.getId());
+    }
+
+    @Test
+    void repeatedUpdatesDoNotGrowTheIndex() {
+        ProductSearchIndex index = new ProductSearchIndex(productRepository);
+        for (long id = 1; id <= 100; id++) {
+            index.onProductChanged(ProductChangedEvent.saved(product(id, "Kettle " + id)));
+        }
+        for (int update = 0; update < 50_000; update++) {
+            long id = update % 100 + 1;
+            index.onProductChanged(ProductChangedEvent.saved(product(id, "Kettle " + id + " v" + update)));
+        }
+
+        assertThat(index.ordinalSpan()).isLessThanOrEqualTo(100 + 1024 + 1);
+        assertThat(index.search("kettle", 0, 10).total()).isEqualTo(100);
+        assertThat(index.search("kettle v49999", 0, 10).ids()).containsExactly(100L);
+        // A short prefix of many words (v49900 to v49999) finds every product
+        assertThat(index.search("v49", 0, 10).total()).isEqualTo(100);
+    }
+
+    private static Product product(long id, String name) {
+        Category category = new Category();
+        category.setName("Kitchen");
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setBrand("Brew");
+        product.setCategory(category);
+        return product;
+    }
+
+    private static ProductRequest request(String name, String brand, String description, String category) {
+        ProductRequest request = new ProductRequest();
+        request.setName(name);
+        request.setBrand(brand);
+        request.setDescription(description);
+        request.setCategory(category);
+        request.setPrice(BigDecimal.ONE);
+        request.setInventory(1);
+        return request;
+    }
+
+    private static List<Long> ids(ProductSearchPage page) {
+        return page.getItems().stream().map(ProductResponse::getId).toList();
+    }
+}
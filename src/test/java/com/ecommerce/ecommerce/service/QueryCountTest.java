@@ -0,0 +1,228 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.config.CacheConfig;
+import com.ecommerce.ecommerce.config.SecondLevelCacheConfig;
+import com.ecommerce.ecommerce.dtos.CartItemRequest;
+import com.ecommerce.ecommerce.dtos.CartResponse;
+import com.ecommerce.ecommerce.dtos.OrderHistoryPage;
+import com.ecommerce.ecommerce.dtos.OrderResponse;
+import com.ecommerce.ecommerce.dtos.OrderSummary;
+import com.ecommerce.ecommerce.mapper.CartMapperImpl;
+import com.ecommerce.ecommerce.mapper.OrderMapperImpl;
+import com.ecommerce.ecommerce.mapper.ProductMapperImpl;
+import com.ecommerce.ecommerce.model.Cart;
+import com.ecommerce.ecommerce.model.CartItem;
+import com.ecommerce.ecommerce.model.Category;
+import com.ecommerce.ecommerce.model.Order;
+import com.ecommerce.ecommerce.model.OrderItem;
+import com.ecommerce.ecommerce.model.Product;
+import com.ecommerce.ecommerce.model.ProductImage;
+import com.ecommerce.ecommerce.model.Role;
+import com.ecommerce.ecommerce.model.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Rendering order history and carts must cost a fixed number of statements, whatever their size
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({ CacheConfig.class, SecondLevelCacheConfig.class, OrderService.class, CartService.class, JpaCartStore.class,
+        OrderMapperImpl.class, CartMapperImpl.class, ProductMapperImpl.class })
+class QueryCountTest {
+
+    private static final int MAX_STATEMENTS = 5;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartService cartService;
+
+    private final List<Product> products = new ArrayList<>();
+
+    @BeforeEach
+    void seedCatalog() {
+        for (int c = 0; c < 5; c++) {
+            Category category = new Category();
+            category.setName("Category " + c);
+            entityManager.persist(category);
+
+            for (int p = 0; p < 20; p++) {
+                Product product = new Product();
+                product.setName("Product " + c + "-" + p);
+                product.setBrand("Brand");
+                product.setPrice(BigDecimal.TEN);
+                product.setInventory(1_000);
+                product.setCategory(category);
+                product.setImages(List.of(image(product, 1), image(product, 2)));
+                entityManager.persist(product);
+                products.add(product);
+            }
+        }
+    }
+
+    @Test
+    void orderHistoryOf200OrdersUsesAHandfulOfStatements() {
+        persistOrders(persistUser("heavy-buyer"), 200);
+
+        Statistics statistics = startCounting();
+        List<OrderResponse> orders = orderService.getUserOrders("heavy-buyer");
+
+        assertThat(orders).hasSize(200);
+        assertThat(orders).allSatisfy(order -> {
+            assertThat(order.getItems()).hasSize(3);
+            assertThat(order.getItems().get(0).getProduct().getCategory()).isNotNull();
+            assertThat(order.getItems().get(0).getProduct().getImages()).hasSize(2);
+        });
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(MAX_STATEMENTS);
+    }
+
+    @Test
+    void orderHistoryPagesAreOneStatementEach() {
+        persistOrders(persistUser("paging-buyer"), 45);
+        persistOrders(persistUser("someone-else"), 5);
+
+        Statistics statistics = startCounting();
+        List<OrderSummary> seen = new ArrayList<>();
+        Long cursor = null;
+        int pages = 0;
+        do {
+            OrderHistoryPage page = orderService.getOrderHistory("paging-buyer", cursor, 20);
+            seen.addAll(page.getItems());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(seen).hasSize(45).allSatisfy(summary -> {
+            assertThat(summary.getItemCount()).isEqualTo(3);
+            assertThat(summary.getTotalAmount()).isEqualByComparingTo("30");
+            assertThat(summary.getCreatedAt()).isNotNull();
+        });
+        assertThat(seen).extracting(OrderSummary::getId).isSortedAccordingTo((a, b) -> Long.compare(b, a));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(pages);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void orderDetailIsOneLookupByIdAndOwner() {
+        Long orderId = persistOrders(persistUser("owner"), 1).get(0).getId();
+        persistUser("stranger");
+
+        Statistics statistics = startCounting();
+        assertThatThrownBy(() -> orderService.getOrderById("stranger", orderId))
+                .hasMessage("Order not found");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        OrderResponse order = orderService.getOrderById("owner", orderId);
+        assertThat(order.getItems()).hasSize(3);
+    }
+
+    @Test
+    void cartWith100LinesUsesAHandfulOfStatements() {
+        User user = persistUser("big-cart");
+        Cart cart = new Cart();
+        cart.setUser(user);
+        for (Product product : products) {
+            CartItem item = new CartItem();
+            item.setCart(cart);
+            item.setProduct(product);
+            item.setQuantity(1);
+            cart.getItems().add(item);
+        }
+        entityManager.persist(cart);
+
+        Statistics statistics = startCounting();
+        CartResponse response = cartService.getCart("big-cart");
+
+        assertThat(response.getItems()).hasSize(100);
+        assertThat(response.getItems()).allSatisfy(item ->
+                assertThat(item.getProduct().getImages()).hasSize(2));
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(MAX_STATEMENTS);
+    }
+
+    @Test
+    void checkoutOf30LinesBatchesItsInserts() {
+        User user = persistUser("batch-buyer");
+        Cart cart = new Cart();
+        cart.setUser(user);
+        for (Product product : products.subList(0, 30)) {
+            CartItem item = new CartItem();
+            item.setCart(cart);
+            item.setProduct(product);
+            item.setQuantity(1);
+            cart.getItems().add(item);
+        }
+        entityManager.persist(cart);
+
+        Statistics statistics = startCounting();
+        OrderResponse order = orderService.checkout("batch-buyer");
+        entityManager.flush();
+
+        assertThat(order.getItems()).hasSize(30);
+        // One stock update per line; the order, its 30 items and the emptied cart go out in batches
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(31);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(30 + 10);
+    }
+
+    // Each order has three lines and a total of 30
+    private List<Order> persistOrders(User user, int count) {
+        List<Order> orders = new ArrayList<>();
+        for (int o = 0; o < count; o++) {
+            Order order = new Order();
+            order.setUser(user);
+            order.setTotalAmount(BigDecimal.valueOf(30));
+            for (int i = 0; i < 3; i++) {
+                OrderItem item = new OrderItem();
+                item.setOrder(order);
+                item.setProduct(products.get((o * 3 + i) % products.size()));
+                item.setQuantity(1);
+                item.setPrice(BigDecimal.TEN);
+                order.getItems().add(item);
+            }
+            entityManager.persist(order);
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    private User persistUser(String uid) {
+        User user = new User();
+        user.setUid(uid);
+        user.setRole(Role.CUSTOMER);
+        entityManager.persist(user);
+        return user;
+    }
+
+    private ProductImage image(Product product, int n) {
+        ProductImage image = new ProductImage();
+        image.setImageUrl("https://cdn.example.com/" + product.getName() + "-" + n + ".jpg");
+        image.setProduct(product);
+        return image;
+    }
+
+    // Starts from an empty persistence context so every entity must come from the database
+    private Statistics startCounting() {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
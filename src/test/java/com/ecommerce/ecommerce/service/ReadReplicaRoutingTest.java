@@ -0,0 +1,177 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.model.Cart;
+import com.ecommerce.ecommerce.model.CartItem;
+import com.ecommerce.ecommerce.model.Category;
+import com.ecommerce.ecommerce.model.Product;
+import com.ecommerce.ecommerce.model.Role;
+import com.ecommerce.ecommerce.model.User;
+import com.ecommerce.ecommerce.repo.CategoryRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Two H2 databases stand in for primary and replica; the replica only catches up when a test says so,
+// which makes every routing decision visible in what comes back
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rw-primary;DB_CLOSE_DELAY=-1",
+        "datasource.replica.url=jdbc:h2:mem:rw-replica;DB_CLOSE_DELAY=-1",
+        "datasource.replica.read-your-writes-window=1s" })
+@ActiveProfiles("test")
+class ReadReplicaRoutingTest {
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primary;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replica;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @BeforeEach
+    void copySchemaToReplica() {
+        JdbcTemplate replicaJdbc = new JdbcTemplate(replica);
+        replicaJdbc.execute("drop all objects");
+        new JdbcTemplate(primary).queryForList("script nodata", String.class).forEach(replicaJdbc::execute);
+    }
+
+    @AfterEach
+    void clearUser() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        new JdbcTemplate(replica).update("insert into category (id, name) values (-1, 'Only on the replica')");
+
+        List<String> readOnly = readOnly().execute(tx -> names(categoryRepository.findAll()));
+        List<String> readWrite = new TransactionTemplate(transactionManager)
+                .execute(tx -> names(categoryRepository.findAll()));
+
+        assertThat(readOnly).contains("Only on the replica");
+        assertThat(readWrite).doesNotContain("Only on the replica");
+    }
+
+    @Test
+    void buyerReadsTheirOrderFromThePrimaryRightAfterCheckout() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx -> seedCart("buyer"));
+        signIn("buyer");
+        assertThat(orderService.getOrderHistory("buyer", null, 20).getItems()).isEmpty(); // replica
+
+        Long orderId = orderService.checkout("buyer").getId();
+
+        assertThat(orderService.getOrderHistory("buyer", null, 20).getItems()).hasSize(1);
+        assertThat(orderService.getOrderById("buyer", orderId).getItems()).hasSize(1);
+
+        // Nobody else is pinned to the primary by the buyer's write
+        signIn("someone-else");
+        assertThat(orderService.getOrderHistory("buyer", null, 20).getItems()).isEmpty();
+    }
+
+    @Test
+    void cachedProductsDoNotKeepTheReplicasCopyAfterCheckout() throws InterruptedException {
+        for (DataSource database : List.of(primary, replica)) {
+            JdbcTemplate jdbc = new JdbcTemplate(database);
+            jdbc.update("insert into category (id, name) values (-2, 'Lagging')");
+            jdbc.update("insert into product (id, name, brand, price, inventory, category_id, version, updated_at)"
+                    + " values (-2, 'Lagging product', 'Brand', 10, 10, -2, 0, current_timestamp)");
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                tx -> seedCart("lagging-buyer", entityManager.find(Product.class, -2L)));
+        assertThat(productService.findById(-2L).getInventory()).isEqualTo(10);
+
+        signIn("lagging-buyer");
+        orderService.checkout("lagging-buyer");
+        SecurityContextHolder.clearContext();
+
+        // The checkout's eviction is refilled by the next reader from the replica, still without the sale
+        assertThat(productService.findById(-2L).getInventory()).isEqualTo(10);
+
+        // The replica catches up; the cached copy must not outlive the window
+        new JdbcTemplate(replica).update("update product set inventory = 9 where id = -2");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (productService.findById(-2L).getInventory() != 9) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    private void seedCart(String uid) {
+        Category category = new Category();
+        category.setName("Routing");
+        entityManager.persist(category);
+
+        Product product = new Product();
+        product.setName("Routed product");
+        product.setBrand("Brand");
+        product.setPrice(BigDecimal.TEN);
+        product.setInventory(10);
+        product.setCategory(category);
+        entityManager.persist(product);
+
+        seedCart(uid, product);
+    }
+
+    private void seedCart(String uid, Product product) {
+        User user = new User();
+        user.setUid(uid);
+        user.setRole(Role.CUSTOMER);
+        entityManager.persist(user);
+
+        Cart cart = new Cart();
+        cart.setUser(user);
+        CartItem item = new CartItem();
+        item.setCart(cart);
+        item.setProduct(product);
+        item.setQuantity(1);
+        cart.getItems().add(item);
+        entityManager.persist(cart);
+    }
+
+    private TransactionTemplate readOnly() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    private static void signIn(String uid) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(uid, null, List.of()));
+    }
+
+    private static List<String> names(List<Category> categories) {
+        return categories.stream().map(Category::getName).toList();
+    }
+}
@@ -0,0 +1,185 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.config.CacheConfig;
+import com.ecommerce.ecommerce.config.SecondLevelCacheConfig;
+import com.ecommerce.ecommerce.dtos.CartResponse;
+import com.ecommerce.ecommerce.dtos.OrderResponse;
+import com.ecommerce.ecommerce.mapper.CartMapperImpl;
+import com.ecommerce.ecommerce.mapper.OrderMapperImpl;
+import com.ecommerce.ecommerce.mapper.ProductMapperImpl;
+import com.ecommerce.ecommerce.model.Cart;
+import com.ecommerce.ecommerce.model.CartItem;
+import com.ecommerce.ecommerce.model.Category;
+import com.ecommerce.ecommerce.model.Order;
+import com.ecommerce.ecommerce.model.OrderItem;
+import com.ecommerce.ecommerce.model.Product;
+import com.ecommerce.ecommerce.model.ProductImage;
+import com.ecommerce.ecommerce.model.Role;
+import com.ecommerce.ecommerce.model.User;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Once products, categories and images are in the second-level cache, carts and orders render from their own rows
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.datasource.url=jdbc:h2:mem:second-level-cache;DB_CLOSE_DELAY=-1" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // the cache only takes committed rows
+@Import({ CacheConfig.class, SecondLevelCacheConfig.class, OrderService.class, CartService.class, JpaCartStore.class,
+        OrderMapperImpl.class, CartMapperImpl.class, ProductMapperImpl.class })
+class SecondLevelCacheTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Test
+    void repeatRendersOfCartsAndOrdersSkipTheCatalogTables() {
+        transactionTemplate.executeWithoutResult(tx -> seed("regular"));
+        entityManagerFactory.getCache().evictAll();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        render("regular");
+        long cold = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        CartResponse cart = cartService.getCart("regular");
+        List<OrderResponse> orders = orderService.getUserOrders("regular");
+        long warm = statistics.getPrepareStatementCount();
+
+        assertThat(cart.getItems()).hasSize(100).allSatisfy(item -> {
+            assertThat(item.getProduct().getCategory()).isNotNull();
+            assertThat(item.getProduct().getImages()).hasSize(2);
+        });
+        assertThat(orders).hasSize(20);
+        // Cold: cart and items, products with categories, images; then orders and items. Both by UID, no user read.
+        // Warm: the catalog reads are gone.
+        assertThat(cold).isEqualTo(4);
+        assertThat(warm).isEqualTo(2);
+        assertThat(statistics.getSecondLevelCacheMissCount()).isZero();
+    }
+
+    @Test
+    void checkoutEvictsOnlyTheProductsItSold() {
+        List<Long> productIds = transactionTemplate.execute(tx -> seed("checkout"));
+        render("checkout"); // every product in the cache
+        Cache cache = entityManagerFactory.getCache();
+        Long sold = productIds.get(0);
+        Long untouched = productIds.get(productIds.size() - 1);
+        transactionTemplate.executeWithoutResult(tx -> {
+            Cart cart = entityManager.createQuery("select c from Cart c where c.user.uid = :uid", Cart.class)
+                    .setParameter("uid", "checkout")
+                    .getSingleResult();
+            cart.getItems().removeIf(item -> !item.getProduct().getId().equals(sold));
+        });
+        assertThat(cache.contains(Product.class, sold)).isTrue();
+        cacheManager.getCache(CacheConfig.PRODUCT_PAGES).put("all", List.of());
+        cacheManager.getCache(CacheConfig.PRODUCT_PAGE_JSON).put("all", new byte[0]);
+
+        orderService.checkout("checkout");
+
+        assertThat(cache.contains(Product.class, sold)).isFalse();
+        assertThat(cache.contains(Product.class, untouched)).isTrue();
+        // Listed pages show inventory too
+        assertThat(cacheManager.getCache(CacheConfig.PRODUCT_PAGES).get("all")).isNull();
+        assertThat(cacheManager.getCache(CacheConfig.PRODUCT_PAGE_JSON).get("all")).isNull();
+        assertThat(entityManager.find(Product.class, sold).getInventory()).isEqualTo(999);
+    }
+
+    private void render(String uid) {
+        cartService.getCart(uid);
+        orderService.getUserOrders(uid);
+    }
+
+    private List<Long> seed(String uid) {
+        List<Product> products = new ArrayList<>();
+        for (int c = 0; c < 5; c++) {
+            Category category = new Category();
+            category.setName("Category " + uid + " " + c);
+            entityManager.persist(category);
+            for (int p = 0; p < 20; p++) {
+                Product product = new Product();
+                product.setName("Product " + c + "-" + p);
+                product.setBrand("Brand");
+                product.setPrice(BigDecimal.TEN);
+                product.setInventory(1_000);
+                product.setCategory(category);
+                product.setImages(List.of(image(product, 1), image(product, 2)));
+                entityManager.persist(product);
+                products.add(product);
+            }
+        }
+
+        User user = new User();
+        user.setUid(uid);
+        user.setRole(Role.CUSTOMER);
+        entityManager.persist(user);
+
+        Cart cart = new Cart();
+        cart.setUser(user);
+        for (Product product : products) {
+            CartItem item = new CartItem();
+            item.setCart(cart);
+            item.setProduct(product);
+            item.setQuantity(1);
+            cart.getItems().add(item);
+        }
+        entityManager.persist(cart);
+
+        for (int o = 0; o < 20; o++) {
+            Order order = new Order();
+            order.setUser(user);
+            order.setTotalAmount(BigDecimal.valueOf(50));
+            for (int i = 0; i < 5; i++) {
+                OrderItem item = new OrderItem();
+                item.setOrder(order);
+                item.setProduct(products.get(o * 5 + i));
+                item.setQuantity(1);
+                item.setPrice(BigDecimal.TEN);
+                order.getItems().add(item);
+            }
+            entityManager.persist(order);
+        }
+        return products.stream().map(Product::getId).toList();
+    }
+
+    private static ProductImage image(Product product, int n) {
+        ProductImage image = new ProductImage();
+        image.setImageUrl("https://cdn.example.com/" + product.getName() + "-" + n + ".jpg");
+        image.setProduct(product);
+        return image;
+    }
+}
@@ -0,0 +1,127 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.config.SecondLevelCacheConfig;
+import com.ecommerce.ecommerce.model.Role;
+import com.ecommerce.ecommerce.model.User;
+import com.ecommerce.ecommerce.repo.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Logins touch the users table only for changed claims, or for tokens newer than the last read of the row
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.datasource.url=jdbc:h2:mem:user-login;DB_CLOSE_DELAY=-1" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // each login commits on its own
+@Import(SecondLevelCacheConfig.class)
+class UserLoginTest {
+
+    // Tokens issued before the test's reads, like one reused across logins
+    private static final Instant ISSUED = Instant.now().minusSeconds(60);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void repeatedLoginsWithTheSameClaimsSkipTheDatabase() {
+        UserService userService = userService();
+
+        statistics.clear();
+        userService.createOrUpdateUser("same", "same@example.com", "Same", Role.CUSTOMER, ISSUED);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3); // select, the merge's own select (assigned id), insert
+
+        statistics.clear();
+        for (int i = 0; i < 10; i++) {
+            userService.createOrUpdateUser("same", "same@example.com", "Same", Role.CUSTOMER, ISSUED);
+        }
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        // After a restart the row is read once, but not written back
+        UserService restarted = userService();
+        statistics.clear();
+        restarted.createOrUpdateUser("same", "same@example.com", "Same", Role.CUSTOMER, ISSUED);
+        restarted.createOrUpdateUser("same", "same@example.com", "Same", Role.CUSTOMER, ISSUED);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+    }
+
+    @Test
+    void changedClaimsAreWrittenOnce() {
+        UserService userService = userService();
+        userService.createOrUpdateUser("changed", "changed@example.com", "Before", Role.CUSTOMER, ISSUED);
+
+        statistics.clear();
+        User user = userService.createOrUpdateUser("changed", "changed@example.com", "After", Role.ADMIN, ISSUED);
+        userService.createOrUpdateUser("changed", "changed@example.com", "After", Role.ADMIN, ISSUED);
+
+        assertThat(user.getName()).isEqualTo("After");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2); // select, update
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(1);
+        assertThat(userRepository.findById("changed")).get()
+                .satisfies(stored -> assertThat(stored.getRole()).isEqualTo(Role.ADMIN));
+    }
+
+    @Test
+    void aNewerTokenIsCheckedAgainstClaimsWrittenElsewhere() {
+        UserService first = userService();
+        UserService second = userService(); // another instance, with its own cache
+        first.createOrUpdateUser("flipped", "flipped@example.com", "A", Role.CUSTOMER, ISSUED);
+        second.createOrUpdateUser("flipped", "flipped@example.com", "B", Role.CUSTOMER, ISSUED);
+
+        // The claims went back to A after the first instance read the row
+        first.createOrUpdateUser("flipped", "flipped@example.com", "A", Role.CUSTOMER, Instant.now().plusSeconds(1));
+
+        assertThat(userRepository.findById("flipped")).get()
+                .satisfies(stored -> assertThat(stored.getName()).isEqualTo("A"));
+    }
+
+    @Test
+    void callersGetTheirOwnCopy() {
+        UserService userService = userService();
+        userService.createOrUpdateUser("copied", "copied@example.com", "Kept", Role.CUSTOMER, ISSUED)
+                .setName("Changed by the caller");
+
+        User cached = userService.createOrUpdateUser("copied", "copied@example.com", "Kept", Role.CUSTOMER, ISSUED);
+        cached.setRole(Role.ADMIN);
+
+        assertThat(userService.createOrUpdateUser("copied", "copied@example.com", "Kept", Role.CUSTOMER, ISSUED))
+                .satisfies(user -> {
+                    assertThat(user.getName()).isEqualTo("Kept");
+                    assertThat(user.getRole()).isEqualTo(Role.CUSTOMER);
+                });
+    }
+
+    private UserService userService() {
+        return new UserService(userRepository, transactionManager, 100, Duration.ofMinutes(10),
+                new SimpleMeterRegistry());
+    }
+}
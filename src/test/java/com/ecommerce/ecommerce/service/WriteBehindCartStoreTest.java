@@ -0,0 +1,241 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.config.CacheConfig;
+import com.ecommerce.ecommerce.config.SecondLevelCacheConfig;
+import com.ecommerce.ecommerce.config.ModelMapperConfig;
+import com.ecommerce.ecommerce.dtos.CartResponse;
+import com.ecommerce.ecommerce.dtos.OrderResponse;
+import com.ecommerce.ecommerce.mapper.OrderMapperImpl;
+import com.ecommerce.ecommerce.mapper.ProductMapperImpl;
+import com.ecommerce.ecommerce.model.Category;
+import com.ecommerce.ecommerce.model.Product;
+import com.ecommerce.ecommerce.model.Role;
+import com.ecommerce.ecommerce.model.User;
+import com.ecommerce.ecommerce.repo.CategoryRepository;
+import com.ecommerce.ecommerce.repo.ProductRepository;
+import com.ecommerce.ecommerce.repo.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Carts held in memory: checkout sees unflushed changes and a crash before the flush loses nothing
+@DataJpaTest(properties = {
+        "cart.store=write-behind",
+        "spring.datasource.url=jdbc:h2:mem:write-behind-cart;DB_CLOSE_DELAY=-1" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // the store commits its own writes
+@Import({ CacheConfig.class, SecondLevelCacheConfig.class, ModelMapperConfig.class, WriteBehindCartStore.class, OrderService.class,
+        ProductServiceImpl.class, CategoryResolver.class, ProductSearchIndex.class, ProductFacetIndex.class,
+        OrderMapperImpl.class, ProductMapperImpl.class })
+class WriteBehindCartStoreTest {
+
+    private static final Path JOURNAL_DIR = createJournalDir();
+
+    @DynamicPropertySource
+    static void journal(DynamicPropertyRegistry registry) {
+        registry.add("cart.write-behind.journal-dir", JOURNAL_DIR::toString);
+    }
+
+    @Autowired
+    private WriteBehindCartStore cartStore;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Product mug;
+    private Product plate;
+
+    @BeforeEach
+    void seed() {
+        Category category = new Category();
+        category.setName("Kitchen " + System.nanoTime());
+        categoryRepository.save(category);
+        mug = productRepository.save(product("Mug", category));
+        plate = productRepository.save(product("Plate", category));
+    }
+
+    @Test
+    void checkoutSeesChangesThatWereNotFlushedYet() {
+        String uid = persistUser("eager-buyer");
+        cartStore.addItem(uid, mug.getId(), 2);
+        cartStore.addItem(uid, plate.getId(), 1);
+        cartStore.addItem(uid, mug.getId(), 1);
+        assertThat(cartLines(uid)).isZero();
+
+        OrderResponse order = orderService.checkout(uid);
+
+        assertThat(order.getItems()).hasSize(2);
+        assertThat(order.getTotalAmount()).isEqualByComparingTo("40");
+        assertThat(cartStore.getCart(uid).getItems()).isEmpty();
+
+        // A later flush must not bring the ordered lines back
+        cartStore.flush();
+        assertThat(cartLines(uid)).isZero();
+    }
+
+    @Test
+    void journalRestoresChangesLostInACrash() throws IOException {
+        String uid = persistUser("unlucky-buyer");
+        cartStore.addItem(uid, mug.getId(), 3);
+        cartStore.addItem(uid, plate.getId(), 1);
+        cartStore.removeItem(uid, plate.getId());
+        assertThat(cartLines(uid)).isZero();
+
+        // A second store on the same journal stands in for the restarted application
+        WriteBehindCartStore restarted = new WriteBehindCartStore(jdbcTemplate, entityManager, transactionTemplate,
+                userRepository, productRepository, productService, cacheManager, JOURNAL_DIR, false, 500, 60_000);
+        restarted.recover();
+
+        assertThat(cartLines(uid)).isEqualTo(1);
+        CartResponse cart = restarted.getCart(uid);
+        assertThat(cart.getItems()).singleElement()
+                .satisfies(line -> {
+                    assertThat(line.getId()).isEqualTo(mug.getId());
+                    assertThat(line.getQuantity()).isEqualTo(3);
+                });
+        restarted.shutdown();
+    }
+
+    @Test
+    void flushDuringAChangeKeepsItsJournalSegment() throws Exception {
+        String uid = persistUser("interrupted-buyer");
+        Path journalDir = Files.createTempDirectory("cart-journal-race");
+        AtomicReference<WriteBehindCartStore> store = new AtomicReference<>();
+        ExecutorService flusher = Executors.newSingleThreadExecutor();
+
+        // Runs a complete flush right after the change is journaled, while the cart is still mid-change
+        CartJournal journal = new CartJournal(journalDir, false) {
+            @Override
+            void setLine(String userId, long productId, int quantity) {
+                super.setLine(userId, productId, quantity);
+                try {
+                    flusher.submit(() -> store.get().flush()).get(10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        store.set(new WriteBehindCartStore(jdbcTemplate, entityManager, transactionTemplate, userRepository,
+                productRepository, productService, cacheManager, journal, 500, 60_000));
+        store.get().addItem(uid, mug.getId(), 2);
+        flusher.shutdown();
+        assertThat(cartLines(uid)).isZero();
+
+        // Crash: the change must still be in the journal
+        WriteBehindCartStore restarted = new WriteBehindCartStore(jdbcTemplate, entityManager, transactionTemplate,
+                userRepository, productRepository, productService, cacheManager, journalDir, false, 500, 60_000);
+        restarted.recover();
+
+        assertThat(cartLines(uid)).isEqualTo(1);
+        restarted.shutdown();
+    }
+
+    @Test
+    void concurrentFirstRequestsLoadOneCart() throws Exception {
+        String uid = "newcomer";
+        assertThatThrownBy(() -> cartStore.getCart(uid)).hasMessage("User not found");
+        persistUser(uid); // the failed load is not remembered
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> ids = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            ids.add(pool.submit(() -> {
+                start.await();
+                return cartStore.getCart(uid).getId();
+            }));
+        }
+        start.countDown();
+        List<Long> loaded = new ArrayList<>();
+        for (Future<Long> id : ids) {
+            loaded.add(id.get(30, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+
+        assertThat(loaded).containsOnly(loaded.get(0));
+        assertThat(jdbcTemplate.queryForObject("select count(*) from cart where user_id = ?", Integer.class, uid))
+                .isEqualTo(1);
+    }
+
+    private int cartLines(String uid) {
+        return jdbcTemplate.queryForObject(
+                "select count(*) from cart_item ci join cart c on c.id = ci.cart_id where c.user_id = ?",
+                Integer.class, uid);
+    }
+
+    private String persistUser(String uid) {
+        User user = new User();
+        user.setUid(uid);
+        user.setRole(Role.CUSTOMER);
+        return userRepository.save(user).getUid();
+    }
+
+    private static Product product(String name, Category category) {
+        Product product = new Product();
+        product.setName(name);
+        product.setBrand("Brand");
+        product.setPrice(BigDecimal.TEN);
+        product.setInventory(100);
+        product.setCategory(category);
+        return product;
+    }
+
+    private static Path createJournalDir() {
+        try {
+            return Files.createTempDirectory("cart-journal");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}